@@ -0,0 +1,321 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bipartite Graph - Read-only actor graph stored as actor-movie credits, rather than as an edge per pair of co-stars.
+ *
+ * Actors have dense IDs 0 to numVertices() - 1 and movies have IDs numVertices() upward, and the compressed sparse row
+ * arrays link each actor to its movies and each movie to its cast. Memory is linear in the number of credits (a movie
+ * with 100 credited actors takes 200 array entries, rather than 9,900 edges), and BFS in GraphLibrary walks the arrays
+ * directly, with two hops (actor to movie to actor) per step of separation.
+ *
+ * Through the Graph interface, the graph looks like the usual co-star graph: the neighbors of an actor are everyone
+ * they appeared in a movie with, and the label on an edge is the movies the two actors appeared in together.
+ * These are worked out from the credits on each call.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class BipartiteGraph implements IndexedGraph<String, MovieLabel>
+{
+    private Map<String, Integer> ids; // From actor to dense ID: { actor -> id }
+    private String[] actors; // From dense ID to actor.
+    private int[] movies; // From (dense ID - number of actors) to movie ID.
+
+    private int[] offsets, targets; // Credits of vertex i: targets[offsets[i]] ... targets[offsets[i + 1] - 1]
+    private int[] degrees; // Number of distinct co-stars of each actor (worked out the first time it is needed).
+
+    /**
+     * Constructor - Building the credits from the maps read in from the input files.
+     *
+     * @param actorMap From actor ID to actor name.
+     * @param connectionsMap From movie ID to the IDs of the actors in it.
+     */
+    public BipartiteGraph(Map<Integer, String> actorMap, Map<Integer, List<Integer>> connectionsMap)
+    {
+        // Assigning each actor a dense ID (actors with the same name are the same vertex, as in an AdjacencyMapGraph).
+        ids = new HashMap<String, Integer>();
+        List<String> actorList = new ArrayList<String>();
+
+        for (String actor : actorMap.values())
+        {
+            if (actor != null && !ids.containsKey(actor))
+            {
+                ids.put(actor, actorList.size());
+                actorList.add(actor);
+            }
+        }
+
+        actors = actorList.toArray(new String[0]);
+        int n = actors.length;
+
+        // Assigning each movie a dense ID, and finding its cast as actor IDs (without duplicates).
+        movies = new int[connectionsMap.size()];
+        int[][] casts = new int[connectionsMap.size()][];
+        int[] creditCounts = new int[n];
+        int m = 0;
+
+        for (int movieID : connectionsMap.keySet())
+        {
+            Set<Integer> cast = new LinkedHashSet<Integer>();
+            for (int actorID : connectionsMap.get(movieID))
+            {
+                Integer id = ids.get(actorMap.get(actorID));
+                if (id != null) cast.add(id);
+            }
+
+            movies[m] = movieID;
+            casts[m] = new int[cast.size()];
+
+            int i = 0;
+            for (int id : cast)
+            {
+                casts[m][i++] = id;
+                creditCounts[id] += 1;
+            }
+
+            m += 1;
+        }
+
+        // Filling in the arrays: first each actor's movies, then each movie's cast.
+        offsets = new int[n + m + 1];
+        for (int i = 0; i < n; i += 1)
+            offsets[i + 1] = offsets[i] + creditCounts[i];
+        for (int j = 0; j < m; j += 1)
+            offsets[n + j + 1] = offsets[n + j] + casts[j].length;
+
+        targets = new int[offsets[n + m]];
+        int[] cursor = Arrays.copyOf(offsets, n);
+
+        for (int j = 0; j < m; j += 1)
+        {
+            System.arraycopy(casts[j], 0, targets, offsets[n + j], casts[j].length);
+
+            for (int actor : casts[j])
+                targets[cursor[actor]++] = n + j;
+        }
+    }
+
+    public int indexOf(String v)
+    {
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    public String vertex(int id)
+    {
+        return actors[id];
+    }
+
+    public int[] outOffsets()
+    {
+        return offsets;
+    }
+
+    public int[] outTargets()
+    {
+        return targets;
+    }
+
+    public int[] inOffsets()
+    {
+        return offsets;
+    }
+
+    public int[] inTargets()
+    {
+        return targets;
+    }
+
+    public int hops()
+    {
+        return 2;
+    }
+
+    /**
+     * How many movies are in the graph.
+     */
+    public int numMovies()
+    {
+        return movies.length;
+    }
+
+    /**
+     * How many actor-movie credits are in the graph.
+     */
+    public int numCredits()
+    {
+        return offsets[actors.length];
+    }
+
+    public int numVertices()
+    {
+        return actors.length;
+    }
+
+    public int numEdges()
+    {
+        // Each co-star pair is an edge in both directions, so this is the sum of the degrees.
+        int n = 0;
+        for (int i = 0; i < actors.length; i += 1) n += degree(i);
+        return n;
+    }
+
+    public Iterable<String> vertices()
+    {
+        return Arrays.asList(actors);
+    }
+
+    public boolean hasVertex(String v)
+    {
+        return ids.containsKey(v);
+    }
+
+    public int outDegree(String v)
+    {
+        return degree(ids.get(v));
+    }
+
+    public int inDegree(String v)
+    {
+        return degree(ids.get(v));
+    }
+
+    public Iterable<String> outNeighbors(String v)
+    {
+        return coStars(ids.get(v));
+    }
+
+    public Iterable<String> inNeighbors(String v)
+    {
+        return coStars(ids.get(v));
+    }
+
+    public boolean hasEdge(String u, String v)
+    {
+        return !u.equals(v) && getLabel(u, v) != null;
+    }
+
+    public MovieLabel getLabel(String u, String v)
+    {
+        // There is no edge to or from an actor that is not in the graph.
+        Integer i = ids.get(u), j = ids.get(v);
+        if (i == null || j == null) return null;
+
+        // Finding the movies in both actors' credits, by merging the two runs (each actor's movies are in increasing
+        // order of dense ID, since the constructor fills them in movie by movie).
+        int[] sharedMovies = new int[Math.min(offsets[i + 1] - offsets[i], offsets[j + 1] - offsets[j])];
+        int shared = 0;
+        int a = offsets[i], b = offsets[j];
+
+        while (a < offsets[i + 1] && b < offsets[j + 1])
+        {
+            if (targets[a] < targets[b]) a += 1;
+            else if (targets[a] > targets[b]) b += 1;
+            else
+            {
+                sharedMovies[shared++] = movies[targets[a] - actors.length];
+                a += 1;
+                b += 1;
+            }
+        }
+
+        return MovieLabel.of(Arrays.copyOf(sharedMovies, shared));
+    }
+
+    public void insertVertex(String v)
+    {
+        throw new UnsupportedOperationException("BipartiteGraph is read-only");
+    }
+
+    public void insertDirected(String u, String v, MovieLabel e)
+    {
+        throw new UnsupportedOperationException("BipartiteGraph is read-only");
+    }
+
+    public void insertUndirected(String u, String v, MovieLabel e)
+    {
+        throw new UnsupportedOperationException("BipartiteGraph is read-only");
+    }
+
+    public void removeVertex(String v)
+    {
+        throw new UnsupportedOperationException("BipartiteGraph is read-only");
+    }
+
+    public void removeDirected(String u, String v)
+    {
+        throw new UnsupportedOperationException("BipartiteGraph is read-only");
+    }
+
+    public void removeUndirected(String u, String v)
+    {
+        throw new UnsupportedOperationException("BipartiteGraph is read-only");
+    }
+
+    /**
+     * The distinct co-stars of the actor with the given ID, in the order their movies are credited.
+     */
+    private Set<String> coStars(int i)
+    {
+        Set<String> coStars = new LinkedHashSet<String>();
+
+        for (int a = offsets[i]; a < offsets[i + 1]; a += 1)
+        {
+            int movie = targets[a];
+            for (int b = offsets[movie]; b < offsets[movie + 1]; b += 1)
+            {
+                if (targets[b] != i) coStars.add(actors[targets[b]]);
+            }
+        }
+
+        return coStars;
+    }
+
+    /**
+     * The number of distinct co-stars of the actor with the given ID.
+     */
+    private synchronized int degree(int i)
+    {
+        // Working out every degree at once the first time, using a marker array rather than a Set per actor.
+        if (degrees == null)
+        {
+            int n = actors.length;
+            int[] marker = new int[n];
+            Arrays.fill(marker, -1);
+            degrees = new int[n];
+
+            for (int u = 0; u < n; u += 1)
+            {
+                for (int a = offsets[u]; a < offsets[u + 1]; a += 1)
+                {
+                    int movie = targets[a];
+                    for (int b = offsets[movie]; b < offsets[movie + 1]; b += 1)
+                    {
+                        int v = targets[b];
+                        if (v != u && marker[v] != u)
+                        {
+                            marker[v] = u;
+                            degrees[u] += 1;
+                        }
+                    }
+                }
+            }
+        }
+
+        return degrees[i];
+    }
+
+    /**
+     * Returns a string representation of the actor and movie counts.
+     */
+    public String toString()
+    {
+        return "Actors: " + actors.length + ", Movies: " + movies.length + ", Credits: " + numCredits();
+    }
+}
@@ -0,0 +1,368 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed Sparse Row Graph - Read-only implementation of the Graph interface.
+ * Every vertex is given a dense integer ID (0 to n - 1), and the edges from vertex i are stored contiguously in
+ * targets[offsets[i]] ... targets[offsets[i + 1] - 1], with the edge labels in a parallel array.
+ *
+ * The graph is "frozen" from an existing graph (e.g. an AdjacencyMapGraph once it has been fully built), which keeps
+ * the vertex order and the order of each neighbor list, so a BFS over the frozen graph visits vertices in exactly the
+ * same order as a BFS over the original. If every edge has a reverse edge with the same label (as is the case when the
+ * graph is built with insertUndirected), the in-edge arrays are shared with the out-edge arrays.
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class CSRGraph<V, E> implements IndexedGraph<V, E>
+{
+    protected Map<V, Integer> ids; // From vertex to dense ID: { v -> id }
+    protected Object[] vertices; // From dense ID to vertex.
+
+    protected int[] outOffsets, outTargets; // Edges from vertex i: outTargets[outOffsets[i]] ... outTargets[outOffsets[i + 1] - 1]
+    protected Object[] outLabels; // Label on the edge stored at the same index of outTargets.
+
+    protected int[] inOffsets, inTargets; // Edges to vertex i, stored the same way (shared with out if symmetric).
+    protected Object[] inLabels;
+
+    /**
+     * Constructor - Freezing a copy of the given graph.
+     *
+     * @param g The graph to freeze (e.g. an AdjacencyMapGraph).
+     */
+    public CSRGraph(Graph<V, E> g)
+    {
+        // Assigning each vertex a dense ID, in the order the graph iterates over its vertices.
+        int n = g.numVertices();
+        ids = new HashMap<V, Integer>(2 * n);
+        vertices = new Object[n];
+
+        for (V v : g.vertices())
+        {
+            vertices[ids.size()] = v;
+            ids.put(v, ids.size());
+        }
+
+        // Filling in the out-edge arrays, keeping the order of each neighbor list.
+        outOffsets = new int[n + 1];
+        for (int i = 0; i < n; i += 1)
+            outOffsets[i + 1] = outOffsets[i] + g.outDegree(vertex(i));
+
+        outTargets = new int[outOffsets[n]];
+        outLabels = new Object[outOffsets[n]];
+
+        // Checking whether every edge is matched by a reverse edge with the same label as we go.
+        boolean symmetric = true;
+
+        for (int i = 0; i < n; i += 1)
+        {
+            V u = vertex(i);
+            int edge = outOffsets[i];
+
+            if (g.inDegree(u) != g.outDegree(u)) symmetric = false;
+
+            for (V v : g.outNeighbors(u))
+            {
+                E label = g.getLabel(u, v);
+                outTargets[edge] = ids.get(v);
+                outLabels[edge] = label;
+                edge += 1;
+
+                if (symmetric && (!g.hasEdge(v, u) || g.getLabel(v, u) != label)) symmetric = false;
+            }
+        }
+
+        // If the graph is symmetric, the edges to a vertex are exactly the edges from it.
+        if (symmetric)
+        {
+            inOffsets = outOffsets;
+            inTargets = outTargets;
+            inLabels = outLabels;
+            return;
+        }
+
+        // Otherwise, filling in the in-edge arrays separately.
+        inOffsets = new int[n + 1];
+        for (int i = 0; i < n; i += 1)
+            inOffsets[i + 1] = inOffsets[i] + g.inDegree(vertex(i));
+
+        inTargets = new int[inOffsets[n]];
+        inLabels = new Object[inOffsets[n]];
+
+        for (int i = 0; i < n; i += 1)
+        {
+            V v = vertex(i);
+            int edge = inOffsets[i];
+
+            for (V u : g.inNeighbors(v))
+            {
+                inTargets[edge] = ids.get(u);
+                inLabels[edge] = g.getLabel(u, v);
+                edge += 1;
+            }
+        }
+    }
+
+    /**
+     * Constructor - Wrapping arrays that are already in compressed sparse row form (e.g. read back from a snapshot).
+     * Pass the out-edge arrays as the in-edge arrays as well if the graph is symmetric.
+     */
+    public CSRGraph(Object[] vertices, int[] outOffsets, int[] outTargets, Object[] outLabels,
+                    int[] inOffsets, int[] inTargets, Object[] inLabels)
+    {
+        this.ids = new HashMap<V, Integer>(2 * vertices.length);
+        this.vertices = vertices;
+
+        for (int i = 0; i < vertices.length; i += 1)
+            ids.put(vertex(i), i);
+
+        this.outOffsets = outOffsets;
+        this.outTargets = outTargets;
+        this.outLabels = outLabels;
+        this.inOffsets = inOffsets;
+        this.inTargets = inTargets;
+        this.inLabels = inLabels;
+    }
+
+    /**
+     * The dense ID of the vertex (0 to n - 1), or -1 if it is not in the graph.
+     */
+    public int indexOf(V v)
+    {
+        Integer id = ids.get(v);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * The vertex with the given dense ID.
+     */
+    @SuppressWarnings("unchecked")
+    public V vertex(int id)
+    {
+        return (V) vertices[id];
+    }
+
+    /**
+     * The label on the edge stored at the given index of the out-edge arrays.
+     */
+    @SuppressWarnings("unchecked")
+    public E label(int edge)
+    {
+        return (E) outLabels[edge];
+    }
+
+    /**
+     * The label on the edge stored at the given index of the in-edge arrays.
+     */
+    @SuppressWarnings("unchecked")
+    public E inLabel(int edge)
+    {
+        return (E) inLabels[edge];
+    }
+
+    /**
+     * Out-edge offsets, indexed by dense ID (length n + 1). The array is shared, so it must not be modified.
+     */
+    public int[] outOffsets()
+    {
+        return outOffsets;
+    }
+
+    /**
+     * Out-edge targets, as dense IDs. The array is shared, so it must not be modified.
+     */
+    public int[] outTargets()
+    {
+        return outTargets;
+    }
+
+    /**
+     * In-edge offsets, indexed by dense ID (length n + 1). The array is shared, so it must not be modified.
+     */
+    public int[] inOffsets()
+    {
+        return inOffsets;
+    }
+
+    /**
+     * In-edge sources, as dense IDs. The array is shared, so it must not be modified.
+     */
+    public int[] inTargets()
+    {
+        return inTargets;
+    }
+
+    public int hops()
+    {
+        return 1;
+    }
+
+    public int numVertices()
+    {
+        return vertices.length;
+    }
+
+    public int numEdges()
+    {
+        return outTargets.length;
+    }
+
+    public Iterable<V> vertices()
+    {
+        return () -> new Iterator<V>()
+        {
+            int next = 0;
+
+            public boolean hasNext()
+            {
+                return next < vertices.length;
+            }
+
+            public V next()
+            {
+                return vertex(next++);
+            }
+        };
+    }
+
+    public boolean hasVertex(V v)
+    {
+        return ids.containsKey(v);
+    }
+
+    public int outDegree(V v)
+    {
+        int i = ids.get(v);
+        return outOffsets[i + 1] - outOffsets[i];
+    }
+
+    public int inDegree(V v)
+    {
+        int i = ids.get(v);
+        return inOffsets[i + 1] - inOffsets[i];
+    }
+
+    public Iterable<V> outNeighbors(V v)
+    {
+        int i = ids.get(v);
+        return neighbors(outTargets, outOffsets[i], outOffsets[i + 1]);
+    }
+
+    public Iterable<V> inNeighbors(V v)
+    {
+        int i = ids.get(v);
+        return neighbors(inTargets, inOffsets[i], inOffsets[i + 1]);
+    }
+
+    public boolean hasEdge(V u, V v)
+    {
+        return edgeIndex(u, v) >= 0;
+    }
+
+    public E getLabel(V u, V v)
+    {
+        int edge = edgeIndex(u, v);
+        return edge < 0 ? null : label(edge);
+    }
+
+    public void insertVertex(V v)
+    {
+        throw new UnsupportedOperationException("CSRGraph is read-only");
+    }
+
+    public void insertDirected(V u, V v, E e)
+    {
+        throw new UnsupportedOperationException("CSRGraph is read-only");
+    }
+
+    public void insertUndirected(V u, V v, E e)
+    {
+        throw new UnsupportedOperationException("CSRGraph is read-only");
+    }
+
+    public void removeVertex(V v)
+    {
+        throw new UnsupportedOperationException("CSRGraph is read-only");
+    }
+
+    public void removeDirected(V u, V v)
+    {
+        throw new UnsupportedOperationException("CSRGraph is read-only");
+    }
+
+    public void removeUndirected(V u, V v)
+    {
+        throw new UnsupportedOperationException("CSRGraph is read-only");
+    }
+
+    /**
+     * Index of the edge from u to v in the out-edge arrays, or -1 if there is no such edge.
+     * Neighbor lists keep their original order (rather than being sorted), so this is a linear scan.
+     */
+    protected int edgeIndex(V u, V v)
+    {
+        int i = ids.get(u);
+        Integer j = ids.get(v);
+        if (j == null) return -1;
+
+        for (int edge = outOffsets[i]; edge < outOffsets[i + 1]; edge += 1)
+        {
+            if (outTargets[edge] == j) return edge;
+        }
+
+        return -1;
+    }
+
+    /**
+     * An iterable view of the vertices with the dense IDs stored in targets[from] ... targets[to - 1].
+     */
+    protected Iterable<V> neighbors(int[] targets, int from, int to)
+    {
+        return () -> new Iterator<V>()
+        {
+            int next = from;
+
+            public boolean hasNext()
+            {
+                return next < to;
+            }
+
+            public V next()
+            {
+                return vertex(targets[next++]);
+            }
+        };
+    }
+
+    /**
+     * Returns a string representation of the vertex and edge lists.
+     */
+    public String toString()
+    {
+        List<V> vertexList = new ArrayList<V>();
+        for (V v : vertices()) vertexList.add(v);
+
+        StringBuilder edges = new StringBuilder("{");
+        for (int i = 0; i < vertices.length; i += 1)
+        {
+            if (i > 0) edges.append(", ");
+            edges.append(vertex(i)).append("={");
+
+            for (int edge = outOffsets[i]; edge < outOffsets[i + 1]; edge += 1)
+            {
+                if (edge > outOffsets[i]) edges.append(", ");
+                edges.append(vertex(outTargets[edge])).append("=").append(outLabels[edge]);
+            }
+
+            edges.append("}");
+        }
+        edges.append("}");
+
+        return "Vertices: " + vertexList + "\nOut Edges: " + edges;
+    }
+}
@@ -0,0 +1,575 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent Graph - An AdjacencyMapGraph that any number of threads can build, change and read at once.
+ *
+ * The maps are ConcurrentHashMaps, so reads never block and never see a map in the middle of a change. Each change
+ * locks the stripes of the vertices it touches (a vertex's stripe is picked by its hash), so that the out-edge and the
+ * in-edge of insertDirected()/removeDirected() (and both directions of the undirected versions) are changed together:
+ * changes to the same vertices happen one after another, while changes to other vertices go ahead in parallel (as when
+ * the graph is loaded by several threads). Stripes are always locked in increasing order, so changes can never deadlock.
+ * A vertex that is not in the graph (e.g. one just removed by another thread) has no neighbors and no edges, rather
+ * than causing a NullPointerException.
+ *
+ * A single read sees each change either entirely or not at all, but a whole BFS is many reads. To see a consistent
+ * graph for the whole of a search, run it inside read(), and make the changes inside write() (e.g. all the edges of a
+ * new credit in one write()): a search inside read() sees all of a write() or none of it, and any number of searches
+ * can run at once between writes. Changes made outside write() do not wait for read(), so they are for when nothing
+ * needs a consistent view (e.g. while the graph is being loaded), and write() cannot be called inside read().
+ *
+ * Unlike AdjacencyMapGraph, vertices cannot be null (a ConcurrentHashMap has no null keys), but labels can be (they
+ * are stored as a placeholder, since a ConcurrentHashMap has no null values either).
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class ConcurrentGraph<V, E> extends AdjacencyMapGraph<V, E>
+{
+    // Stored in place of a null label.
+    private static final Object NULL_LABEL = new Object()
+    {
+        public String toString()
+        {
+            return "null";
+        }
+    };
+
+    private final ReentrantLock[] stripes; // A vertex's changes are made while holding its stripe.
+    private final ReentrantReadWriteLock view = new ReentrantReadWriteLock(); // Held by read() (shared) and write().
+
+    /**
+     * Default Constructor - Creating an empty graph, with enough stripes for the number of cores.
+     */
+    public ConcurrentGraph()
+    {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructor - Creating an empty graph, with at least the given number of stripes (rounded up to a power of two).
+     */
+    public ConcurrentGraph(int stripeCount)
+    {
+        in = new ConcurrentHashMap<V, Map<V, E>>();
+        out = new ConcurrentHashMap<V, Map<V, E>>();
+
+        int size = Integer.highestOneBit(Math.max(16, stripeCount) - 1) << 1;
+        stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i += 1)
+            stripes[i] = new ReentrantLock();
+    }
+
+    /**
+     * Read
+     * Runs the reader (e.g. a BFS over this graph) while no write() is in progress, returning its result.
+     */
+    public <T> T read(Supplier<T> reader)
+    {
+        view.readLock().lock();
+        try
+        {
+            return reader.get();
+        }
+
+        finally
+        {
+            view.readLock().unlock();
+        }
+    }
+
+    /**
+     * Write
+     * Makes the changes while no read() is in progress, so that readers see either all of them or none. Writes can be
+     * nested, but cannot be made inside read().
+     */
+    public void write(Runnable changes)
+    {
+        // Waiting for the write lock while holding the read lock would wait forever.
+        if (view.getReadHoldCount() > 0) throw new IllegalStateException("Cannot write to the graph inside read()");
+
+        view.writeLock().lock();
+        try
+        {
+            changes.run();
+        }
+
+        finally
+        {
+            view.writeLock().unlock();
+        }
+    }
+
+    public int outDegree(V v)
+    {
+        Map<V, E> edges = out.get(v);
+        return edges == null ? 0 : edges.size();
+    }
+
+    public int inDegree(V v)
+    {
+        Map<V, E> edges = in.get(v);
+        return edges == null ? 0 : edges.size();
+    }
+
+    public Iterable<V> outNeighbors(V v)
+    {
+        Map<V, E> edges = out.get(v);
+        return edges == null ? Collections.<V>emptySet() : edges.keySet();
+    }
+
+    public Iterable<V> inNeighbors(V v)
+    {
+        Map<V, E> edges = in.get(v);
+        return edges == null ? Collections.<V>emptySet() : edges.keySet();
+    }
+
+    public boolean hasEdge(V u, V v)
+    {
+        Map<V, E> edges = out.get(u);
+        return edges != null && edges.containsKey(v);
+    }
+
+    public E getLabel(V u, V v)
+    {
+        Map<V, E> edges = out.get(u);
+        if (edges == null) return null;
+
+        E e = edges.get(v);
+        return e == NULL_LABEL ? null : e;
+    }
+
+    public void insertVertex(V v)
+    {
+        ReentrantLock lock = stripe(v);
+        lock.lock();
+        try
+        {
+            if (!out.containsKey(v))
+            {
+                in.put(v, new ConcurrentHashMap<V, E>()); // Edges to v.
+                out.put(v, new ConcurrentHashMap<V, E>()); // Edges from v (added last, since hasVertex() checks out).
+            }
+        }
+
+        finally
+        {
+            lock.unlock();
+        }
+    }
+
+    public void insertDirected(V u, V v, E e)
+    {
+        lockBoth(u, v);
+        try
+        {
+            checkVertices(u, v);
+            putEdge(u, v, e);
+        }
+
+        finally
+        {
+            unlockBoth(u, v);
+        }
+    }
+
+    public void insertUndirected(V u, V v, E e)
+    {
+        lockBoth(u, v);
+        try
+        {
+            checkVertices(u, v);
+            putEdge(u, v, e);
+            putEdge(v, u, e);
+        }
+
+        finally
+        {
+            unlockBoth(u, v);
+        }
+    }
+
+    public void removeDirected(V u, V v)
+    {
+        lockBoth(u, v);
+        try
+        {
+            checkVertices(u, v);
+            super.removeDirected(u, v);
+        }
+
+        finally
+        {
+            unlockBoth(u, v);
+        }
+    }
+
+    public void removeUndirected(V u, V v)
+    {
+        lockBoth(u, v);
+        try
+        {
+            checkVertices(u, v);
+            super.removeDirected(u, v);
+            super.removeDirected(v, u);
+        }
+
+        finally
+        {
+            unlockBoth(u, v);
+        }
+    }
+
+    public void removeVertex(V v)
+    {
+        // The neighbors could be in any stripe, so every stripe is locked (in order) for the rare removal of a vertex.
+        for (ReentrantLock lock : stripes) lock.lock();
+        try
+        {
+            super.removeVertex(v);
+        }
+
+        finally
+        {
+            for (int i = stripes.length - 1; i >= 0; i -= 1) stripes[i].unlock();
+        }
+    }
+
+    /**
+     * Adds the edge from u to v in both maps (with the placeholder for a null label).
+     */
+    @SuppressWarnings("unchecked")
+    private void putEdge(V u, V v, E e)
+    {
+        E label = e == null ? (E) NULL_LABEL : e;
+        out.get(u).put(v, label);
+        in.get(v).put(u, label);
+    }
+
+    /**
+     * Makes sure both vertices are in the graph (while their stripes are held, so neither can be removed), since the
+     * edges would otherwise be changed in one direction and not the other.
+     */
+    private void checkVertices(V u, V v)
+    {
+        if (!out.containsKey(u)) throw new IllegalArgumentException("No such vertex: " + u);
+        if (!out.containsKey(v)) throw new IllegalArgumentException("No such vertex: " + v);
+    }
+
+    /**
+     * The stripe that guards the vertex.
+     */
+    private ReentrantLock stripe(V v)
+    {
+        return stripes[stripeIndex(v)];
+    }
+
+    /**
+     * The index of the stripe that guards the vertex.
+     */
+    private int stripeIndex(V v)
+    {
+        int h = v.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+
+    /**
+     * Locks the stripes of both vertices (once, if they share a stripe), in increasing order.
+     */
+    private void lockBoth(V u, V v)
+    {
+        int first = stripeIndex(u), second = stripeIndex(v);
+
+        stripes[Math.min(first, second)].lock();
+        if (first != second) stripes[Math.max(first, second)].lock();
+    }
+
+    /**
+     * Unlocks the stripes locked by lockBoth().
+     */
+    private void unlockBoth(V u, V v)
+    {
+        int first = stripeIndex(u), second = stripeIndex(v);
+
+        if (first != second) stripes[Math.max(first, second)].unlock();
+        stripes[Math.min(first, second)].unlock();
+    }
+
+    /**
+     * Checks the graph under threads: building it from several threads gives the same graph as building it from one,
+     * inserting and removing edges and vertices from several threads leaves every edge with its reverse, a change only
+     * waits for changes to the same stripes (and not for read()), and a search inside read() never sees part of a
+     * write().
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int threads = 8, n = 3000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Random random = new Random(5);
+
+        // Making up some casts (each a clique of actors), and building the graph of them in one thread.
+        List<int[]> casts = new ArrayList<int[]>();
+        for (int m = 0; m < 20000; m += 1)
+        {
+            int[] cast = new int[2 + random.nextInt(6)];
+            for (int i = 0; i < cast.length; i += 1) cast[i] = random.nextInt(n);
+            casts.add(cast);
+        }
+
+        AdjacencyMapGraph<Integer, Integer> sequential = new AdjacencyMapGraph<Integer, Integer>();
+        for (int v = 0; v < n; v += 1) sequential.insertVertex(v);
+        for (int[] cast : casts)
+        {
+            for (int u : cast)
+            {
+                for (int v : cast)
+                {
+                    if (u != v) sequential.insertUndirected(u, v, 1);
+                }
+            }
+        }
+
+        // Building the same graph from every thread at once (each taking every threads-th vertex, then cast).
+        ConcurrentGraph<Integer, Integer> graph = new ConcurrentGraph<Integer, Integer>();
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < threads; t += 1)
+        {
+            int first = t;
+            futures.add(executor.submit(() ->
+            {
+                for (int v = first; v < n; v += threads) graph.insertVertex(v);
+            }));
+        }
+
+        for (Future<?> future : futures) future.get();
+        futures.clear();
+
+        for (int t = 0; t < threads; t += 1)
+        {
+            int first = t;
+            futures.add(executor.submit(() ->
+            {
+                for (int m = first; m < casts.size(); m += threads)
+                {
+                    for (int u : casts.get(m))
+                    {
+                        for (int v : casts.get(m))
+                        {
+                            if (u != v) graph.insertUndirected(u, v, 1);
+                        }
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) future.get();
+        futures.clear();
+
+        int mismatched = 0;
+        for (int v = 0; v < n; v += 1)
+        {
+            if (!toSet(sequential.outNeighbors(v)).equals(toSet(graph.outNeighbors(v)))
+                    || !toSet(sequential.inNeighbors(v)).equals(toSet(graph.inNeighbors(v))))
+                mismatched += 1;
+        }
+
+        System.out.println("Concurrent Build: " + graph.numEdges() + "/" + sequential.numEdges() + " edges, "
+                + mismatched + " vertices with different neighbors");
+
+        // Inserting and removing random edges (and the odd vertex) from every thread at once.
+        for (int t = 0; t < threads; t += 1)
+        {
+            int seed = t;
+            futures.add(executor.submit(() ->
+            {
+                Random changes = new Random(seed);
+                for (int k = 0; k < 50000; k += 1)
+                {
+                    int u = changes.nextInt(n), v = changes.nextInt(n);
+                    if (k % 20000 == 0) graph.removeVertex(changes.nextInt(n));
+                    if (u == v) continue;
+
+                    // Either vertex may have been removed by another thread.
+                    try
+                    {
+                        if (changes.nextBoolean()) graph.insertUndirected(u, v, 2);
+                        else graph.removeUndirected(u, v);
+                    }
+
+                    catch (IllegalArgumentException e)
+                    {
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures) future.get();
+
+        int asymmetric = 0;
+        for (Integer u : graph.vertices())
+        {
+            for (Integer v : graph.outNeighbors(u))
+            {
+                if (!graph.hasVertex(v) || !graph.hasEdge(v, u) || !graph.in.get(v).containsKey(u))
+                    asymmetric += 1;
+            }
+        }
+
+        System.out.println("Concurrent Changes: " + asymmetric + " edges without their reverse");
+
+        // Holding the stripe of one vertex: a change to two vertices in other stripes goes ahead, while a change to
+        // that vertex waits for the stripe.
+        ConcurrentGraph<Integer, Integer> striped = new ConcurrentGraph<Integer, Integer>(16);
+        for (int v = 0; v < 64; v += 1) striped.insertVertex(v);
+
+        int held = 0, u = 1;
+        while (striped.stripeIndex(u) == striped.stripeIndex(held)) u += 1;
+        int w = u + 1;
+        while (striped.stripeIndex(w) == striped.stripeIndex(held) || striped.stripeIndex(w) == striped.stripeIndex(u))
+            w += 1;
+
+        int first = u, second = w;
+        striped.stripe(held).lock();
+        Future<?> independent = executor.submit(() -> striped.insertUndirected(first, second, 0));
+        Future<?> dependent = executor.submit(() -> striped.insertUndirected(held, first, 0));
+
+        boolean wentAhead = true, waited = false;
+        try
+        {
+            independent.get(10, TimeUnit.SECONDS);
+        }
+
+        catch (TimeoutException e)
+        {
+            wentAhead = false;
+        }
+
+        try
+        {
+            dependent.get(200, TimeUnit.MILLISECONDS);
+        }
+
+        catch (TimeoutException e)
+        {
+            waited = true;
+        }
+
+        striped.stripe(held).unlock();
+        dependent.get();
+
+        System.out.println("Striped Locks: other stripes went ahead " + wentAhead + ", same stripe waited " + waited
+                + ", " + striped.numEdges() + " edges");
+
+        // Holding read() on a graph while another thread changes it outside write(), which goes ahead.
+        CountDownLatch changed = new CountDownLatch(1);
+        boolean changedDuringRead = striped.read(() ->
+        {
+            executor.submit(() ->
+            {
+                for (int v = 2; v < 64; v += 1) striped.insertDirected(0, v, 1);
+                changed.countDown();
+            });
+
+            try
+            {
+                return changed.await(10, TimeUnit.SECONDS);
+            }
+
+            catch (InterruptedException e)
+            {
+                return false;
+            }
+        });
+
+        System.out.println("Changes During read(): went ahead " + changedDuringRead + ", " + striped.outDegree(0)
+                + " edges from vertex 0");
+
+        // Writing cliques of five new vertices (each in one write()), while other threads check inside read() that
+        // every clique they see is whole.
+        ConcurrentGraph<Integer, Integer> cliques = new ConcurrentGraph<Integer, Integer>();
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicInteger torn = new AtomicInteger(), reads = new AtomicInteger();
+        for (int t = 0; t < 3; t += 1)
+        {
+            executor.submit(() ->
+            {
+                while (!stop.get())
+                {
+                    cliques.read(() ->
+                    {
+                        for (Integer v : cliques.vertices())
+                        {
+                            int base = v / 5 * 5;
+                            for (int j = base; j < base + 5; j += 1)
+                            {
+                                if (!cliques.hasVertex(j) || (j != v && !cliques.hasEdge(v, j))) torn.incrementAndGet();
+                            }
+                        }
+
+                        return null;
+                    });
+
+                    reads.incrementAndGet();
+                }
+            });
+        }
+
+        for (int c = 0; c < 600; c += 1)
+        {
+            int base = c * 5;
+            cliques.write(() ->
+            {
+                for (int j = base; j < base + 5; j += 1) cliques.insertVertex(j);
+                for (int i = base; i < base + 5; i += 1)
+                {
+                    for (int j = base; j < base + 5; j += 1)
+                    {
+                        if (i != j) cliques.insertDirected(i, j, 0);
+                    }
+                }
+            });
+        }
+
+        stop.set(true);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        System.out.println("Consistent Reads: " + torn + " torn cliques in " + reads + " searches, "
+                + cliques.numVertices() + " vertices, " + cliques.numEdges() + " edges");
+
+        // A null label is kept (as in AdjacencyMapGraph), and a removed vertex has no edges.
+        cliques.insertDirected(0, 1, null);
+        cliques.removeVertex(2);
+        System.out.println("Null Label: " + cliques.hasEdge(0, 1) + " " + cliques.getLabel(0, 1)
+                + ", Removed Vertex: " + cliques.outDegree(2) + " " + cliques.hasEdge(2, 3) + " " + cliques.getLabel(2, 3));
+    }
+
+    /**
+     * The vertices as a set (for comparing neighbors).
+     */
+    private static <T> Set<T> toSet(Iterable<T> vertices)
+    {
+        Set<T> set = new HashSet<T>();
+        for (T v : vertices) set.add(v);
+        return set;
+    }
+}
@@ -0,0 +1,174 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Connected Components
+ * The connected components of an IndexedGraph, found once with a union-find over its edges (with path halving and
+ * union by size), so that whether two vertices are connected, and which vertices are not connected to a given one, can
+ * be answered by looking up arrays rather than with a BFS.
+ *
+ * The components are numbered 0 to numComponents() - 1, and the vertices are grouped by component in a single array
+ * (members of component c: members[starts[c]] ... members[starts[c + 1] - 1]), so listing the vertices in (or outside
+ * of) a component costs time in proportion to the number listed. Edges are treated as undirected, so for a directed
+ * graph these are the weakly connected components. Any intermediate vertices (see IndexedGraph) join up the vertices
+ * they link, but are not counted as members.
+ *
+ * @param <V> The type of vertices.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class ConnectedComponents<V>
+{
+    private IndexedGraph<V, ?> graph; // The graph (for translating between vertices and IDs).
+    private int[] component; // From ID to component number.
+    private int[] members; // IDs, grouped by component.
+    private int[] starts; // Where each component starts in members (with one extra entry for the end).
+
+    /**
+     * Constructor - Finding the components of the graph.
+     */
+    public ConnectedComponents(IndexedGraph<V, ?> graph)
+    {
+        this.graph = graph;
+
+        int[] offsets = graph.outOffsets(), targets = graph.outTargets();
+        int total = offsets.length - 1; // Including intermediate vertices.
+        int n = graph.numVertices();
+
+        // Joining the two ends of every edge.
+        int[] link = new int[total], size = new int[total];
+        for (int i = 0; i < total; i += 1)
+        {
+            link[i] = i;
+            size[i] = 1;
+        }
+
+        for (int u = 0; u < total; u += 1)
+        {
+            for (int edge = offsets[u]; edge < offsets[u + 1]; edge += 1)
+            {
+                int a = find(link, u), b = find(link, targets[edge]);
+                if (a == b) continue;
+
+                // Hanging the smaller tree under the larger one.
+                if (size[a] < size[b])
+                {
+                    int swap = a;
+                    a = b;
+                    b = swap;
+                }
+
+                link[b] = a;
+                size[a] += size[b];
+            }
+        }
+
+        // Numbering the components in order of their lowest ID, and counting their members.
+        int[] number = new int[total];
+        Arrays.fill(number, -1);
+        component = new int[n];
+        int count = 0;
+
+        for (int i = 0; i < n; i += 1)
+        {
+            int r = find(link, i);
+            if (number[r] < 0) number[r] = count++;
+            component[i] = number[r];
+        }
+
+        starts = new int[count + 1];
+        for (int i = 0; i < n; i += 1) starts[component[i] + 1] += 1;
+        for (int c = 1; c <= count; c += 1) starts[c] += starts[c - 1];
+
+        // Grouping the members by component (in order of ID within each).
+        members = new int[n];
+        int[] cursors = Arrays.copyOf(starts, count);
+        for (int i = 0; i < n; i += 1) members[cursors[component[i]]++] = i;
+    }
+
+    /**
+     * Finds the root of the tree holding i, halving the path to it along the way.
+     */
+    private static int find(int[] link, int i)
+    {
+        while (link[i] != i)
+        {
+            link[i] = link[link[i]];
+            i = link[i];
+        }
+
+        return i;
+    }
+
+    /**
+     * How many components there are.
+     */
+    public int numComponents()
+    {
+        return starts.length - 1;
+    }
+
+    /**
+     * The component the vertex is in, or -1 if it is not in the graph.
+     */
+    public int component(V v)
+    {
+        int i = graph.indexOf(v);
+        return i < 0 ? -1 : component[i];
+    }
+
+    /**
+     * How many vertices are in the component.
+     */
+    public int size(int c)
+    {
+        return starts[c + 1] - starts[c];
+    }
+
+    /**
+     * Whether u and v are both in the graph and in the same component.
+     */
+    public boolean connected(V u, V v)
+    {
+        int c = component(u);
+        return c >= 0 && c == component(v);
+    }
+
+    /**
+     * The vertices in the component, in order of ID.
+     */
+    public List<V> members(int c)
+    {
+        return slice(starts[c], starts[c + 1], 0, 0);
+    }
+
+    /**
+     * The vertices in every other component (e.g. those with infinite separation from a vertex in the component).
+     */
+    public List<V> verticesOutside(int c)
+    {
+        return slice(0, starts[c], starts[c + 1], members.length);
+    }
+
+    /**
+     * A view of members[from] ... members[to - 1] followed by members[from2] ... members[to2 - 1].
+     */
+    private List<V> slice(int from, int to, int from2, int to2)
+    {
+        return new AbstractList<V>()
+        {
+            public V get(int index)
+            {
+                Objects.checkIndex(index, size());
+                return graph.vertex(index < to - from ? members[from + index] : members[from2 + index - (to - from)]);
+            }
+
+            public int size()
+            {
+                return (to - from) + (to2 - from2);
+            }
+        };
+    }
+}
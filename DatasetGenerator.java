@@ -0,0 +1,188 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Dataset Generator
+ * Writes a made-up dataset (actors.txt, movies.txt and movie-actors.txt, in the id|name and movieId|actorId formats
+ * that MovieDataLoader reads) of any size, for trying out loading, BFS and centrality at production scale.
+ *
+ * As in real casting data, both the number of movies an actor is in (career length) and the number of actors in a
+ * movie (cast size) are heavy-tailed: they are drawn from power laws, P(k) ~ k^-exponent, with most actors in one
+ * movie and a few in hundreds. Every actor is given a career length, and each credit is a slot; the slots are shuffled
+ * and cut into casts of the drawn sizes (a configuration model), so both distributions come out as drawn. An actor
+ * who lands in the same movie twice is only credited once. Actors are numbered from the longest career down (so
+ * actor 1, the most prolific, makes a good center of the universe), and the same seed gives the same dataset.
+ *
+ * Usage: java DatasetGenerator <directory> <credits> [<seed> [<career exponent> <cast exponent>]]
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class DatasetGenerator
+{
+    public static final double CAREER_EXPONENT = 2.2; // Close to the bundled dataset (over half of actors in one movie).
+    public static final double CAST_EXPONENT = 2.5;
+    private static final int MIN_CAREER = 1, MAX_CAREER = 10000;
+    private static final int MIN_CAST = 2, MAX_CAST = 1000;
+
+    /**
+     * Generate
+     * Writes a dataset with about the given number of credits to the directory, with the default exponents.
+     *
+     * @return The actor, movie and connections files.
+     */
+    public static String[] generate(Path directory, long credits, long seed) throws IOException
+    {
+        return generate(directory, credits, seed, CAREER_EXPONENT, CAST_EXPONENT);
+    }
+
+    /**
+     * Generate
+     * Writes a dataset with about the given number of credits (fewer by any repeated credits) to the directory.
+     *
+     * @param directory Where to write the files (created if it does not exist).
+     * @param credits How many credits (lines of movie-actors.txt) to draw.
+     * @param seed The seed for the random numbers.
+     * @param careerExponent The exponent of the power law for career lengths (greater than 1).
+     * @param castExponent The exponent of the power law for cast sizes (greater than 1).
+     * @return The actor, movie and connections files.
+     */
+    public static String[] generate(Path directory, long credits, long seed, double careerExponent, double castExponent)
+            throws IOException
+    {
+        if (credits <= 0 || credits > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("credits out of range: " + credits);
+        if (careerExponent <= 1 || castExponent <= 1) throw new IllegalArgumentException("exponents must be greater than 1");
+
+        Random random = new Random(seed);
+        int total = (int) credits;
+
+        // Drawing career lengths until they add up to the credits (cutting the last one short), longest first.
+        int[] careers = new int[16];
+        int actors = 0;
+
+        for (long drawn = 0; drawn < total; actors += 1)
+        {
+            if (actors == careers.length) careers = Arrays.copyOf(careers, 2 * actors);
+
+            int career = (int) Math.min(powerLaw(random, MIN_CAREER, MAX_CAREER, careerExponent), total - drawn);
+            careers[actors] = career;
+            drawn += career;
+        }
+
+        careers = Arrays.copyOf(careers, actors);
+        Arrays.sort(careers);
+
+        // One slot per credit (actor 1's first, since the sort is ascending and actors are numbered from the end).
+        int[] slots = new int[total];
+        int slot = 0;
+        for (int i = actors - 1; i >= 0; i -= 1)
+        {
+            Arrays.fill(slots, slot, slot + careers[i], actors - i);
+            slot += careers[i];
+        }
+
+        // Shuffling the slots (Fisher-Yates).
+        for (int i = total - 1; i > 0; i -= 1)
+        {
+            int j = random.nextInt(i + 1);
+            int swap = slots[i];
+            slots[i] = slots[j];
+            slots[j] = swap;
+        }
+
+        // Cutting the shuffled slots into casts, and writing out the credits.
+        Files.createDirectories(directory);
+        Path actorFile = directory.resolve("actors.txt");
+        Path movieFile = directory.resolve("movies.txt");
+        Path connectionsFile = directory.resolve("movie-actors.txt");
+
+        int movies = 0;
+        int[] lastMovie = new int[actors + 1]; // The last movie each actor was credited in (to skip repeats).
+
+        try (Writer out = writer(connectionsFile))
+        {
+            for (int start = 0; start < total; )
+            {
+                movies += 1;
+                int end = (int) Math.min(total, start + powerLaw(random, MIN_CAST, MAX_CAST, castExponent));
+
+                for (int i = start; i < end; i += 1)
+                {
+                    int actor = slots[i];
+                    if (lastMovie[actor] == movies) continue;
+
+                    lastMovie[actor] = movies;
+                    out.write(movies + "|" + actor + "\n");
+                }
+
+                start = end;
+            }
+        }
+
+        // Naming the actors and movies.
+        try (Writer out = writer(actorFile))
+        {
+            for (int id = 1; id <= actors; id += 1)
+                out.write(id + "|Actor " + id + "\n");
+        }
+
+        try (Writer out = writer(movieFile))
+        {
+            for (int id = 1; id <= movies; id += 1)
+                out.write(id + "|Movie " + id + "\n");
+        }
+
+        return new String[] { actorFile.toString(), movieFile.toString(), connectionsFile.toString() };
+    }
+
+    /**
+     * Draws a whole number between min and max from a power law with the given exponent (by inverting the continuous
+     * Pareto distribution and rounding down, with anything above max drawn again).
+     */
+    private static long powerLaw(Random random, int min, int max, double exponent)
+    {
+        while (true)
+        {
+            double x = min * Math.pow(1 - random.nextDouble(), -1 / (exponent - 1));
+            if (x < max + 1) return (long) x;
+        }
+    }
+
+    /**
+     * A buffered writer for the file, in the default charset (which is what MovieDataLoader reads).
+     */
+    private static BufferedWriter writer(Path file) throws IOException
+    {
+        return new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(file), Charset.defaultCharset()), 1 << 16);
+    }
+
+    /**
+     * Main Method
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2 && args.length != 3 && args.length != 5)
+        {
+            System.err.println("Usage: java DatasetGenerator <directory> <credits> [<seed> [<career exponent> <cast exponent>]]");
+            System.exit(1);
+        }
+
+        Path directory = Path.of(args[0]);
+        long credits = Long.parseLong(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        double careerExponent = args.length > 3 ? Double.parseDouble(args[3]) : CAREER_EXPONENT;
+        double castExponent = args.length > 3 ? Double.parseDouble(args[4]) : CAST_EXPONENT;
+
+        long start = System.currentTimeMillis();
+        String[] files = generate(directory, credits, seed, careerExponent, castExponent);
+
+        System.out.println("Wrote " + String.join(", ", files) + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+}
@@ -0,0 +1,347 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Degree Index
+ * The vertices of a graph sorted by in-degree, built once with a counting sort, so that the vertices in a range of
+ * degrees, or with the highest or lowest degrees, can be read off without looking at the rest of the graph.
+ *
+ * The sorted array is made up of one bucket per degree, and starts[d] is where the bucket for degree d starts. Within
+ * a bucket, vertices are in the reverse of the order the graph iterates over them (so that reading the array from the
+ * end gives the same order as GraphLibrary.verticesByInDegree()). As a GraphListener, the index is kept up to date
+ * when the graph changes: a vertex whose degree goes up or down by one is swapped to the edge of its bucket, and the
+ * bucket boundary is moved past it, so each change takes constant time (or time in proportion to the highest degree,
+ * for adding or removing a vertex). Register it as a GraphListener on the ObservableGraph it was built from (as main()
+ * does); the game's graph is frozen once it is loaded, so there it is only ever built once.
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class DegreeIndex<V, E> implements GraphListener<V, E>
+{
+    private Object[] sorted; // The vertices, sorted by in-degree (with room to grow at the end).
+    private int size; // How many vertices are in the index.
+    private int[] starts; // Vertices of degree d: sorted[starts[d]] ... sorted[starts[d + 1] - 1] (the last entry is size).
+    private Map<V, Integer> positions; // From vertex to its index in sorted (only built once the graph changes).
+
+    /**
+     * Constructor - Sorting the vertices of the graph by in-degree.
+     */
+    public DegreeIndex(Graph<V, E> g)
+    {
+        List<V> vertices = new ArrayList<V>();
+        for (V v : g.vertices()) vertices.add(v);
+
+        // Finding each vertex's degree, and the size of each bucket.
+        int n = vertices.size();
+        int[] degrees = new int[n];
+        int maxDegree = 0;
+
+        for (int i = 0; i < n; i += 1)
+        {
+            degrees[i] = g.inDegree(vertices.get(i));
+            maxDegree = Math.max(maxDegree, degrees[i]);
+        }
+
+        starts = new int[maxDegree + 2];
+        for (int i = 0; i < n; i += 1) starts[degrees[i] + 1] += 1;
+        for (int d = 1; d < starts.length; d += 1) starts[d] += starts[d - 1];
+
+        // Placing the vertices in their buckets (last vertex first).
+        int[] cursors = Arrays.copyOf(starts, starts.length);
+        sorted = new Object[n];
+        size = n;
+
+        for (int i = n - 1; i >= 0; i -= 1)
+            sorted[cursors[degrees[i]]++] = vertices.get(i);
+    }
+
+    /**
+     * How many vertices are in the index.
+     */
+    public int numVertices()
+    {
+        return size;
+    }
+
+    /**
+     * The highest in-degree of any vertex (or 0 if there are none).
+     */
+    public int maxDegree()
+    {
+        int d = starts.length - 2;
+        while (d > 0 && starts[d] == size) d -= 1; // Skipping empty buckets at the top.
+        return d;
+    }
+
+    /**
+     * The in-degree of the vertex, or -1 if it is not in the index.
+     */
+    public int degree(V v)
+    {
+        ensurePositions();
+        Integer position = positions.get(v);
+        return position == null ? -1 : degreeAt(position);
+    }
+
+    /**
+     * All the vertices, sorted by in-degree from lowest to highest (so the highest are at the end).
+     */
+    public List<V> vertices()
+    {
+        return slice(0, size);
+    }
+
+    /**
+     * The vertices with in-degree between low and high (inclusive), sorted by in-degree, straight from the buckets (so
+     * the cost is in proportion to the number of vertices returned).
+     */
+    public List<V> verticesByDegree(int low, int high)
+    {
+        int maxBucket = starts.length - 2;
+        int from = starts[Math.max(0, Math.min(low, maxBucket + 1))];
+        int to = starts[Math.max(0, Math.min(high, maxBucket) + 1)];
+
+        return slice(from, Math.max(from, to));
+    }
+
+    // Keeping the index up to date as the graph changes (only in-degrees are indexed, so only v of an edge matters).
+
+    public void vertexInserted(V v)
+    {
+        ensurePositions();
+
+        // Adding the vertex at the end (in the top bucket), then moving it down to bucket 0 one bucket at a time.
+        if (size == sorted.length) sorted = Arrays.copyOf(sorted, Math.max(16, 2 * size));
+        int position = size;
+        place(v, position);
+        size += 1;
+        starts[starts.length - 1] = size;
+
+        for (int d = starts.length - 2; d > 0; d -= 1)
+        {
+            swap(position, starts[d]);
+            position = starts[d];
+            starts[d] += 1;
+        }
+    }
+
+    public void vertexRemoved(V v)
+    {
+        ensurePositions();
+        Integer position = positions.get(v);
+        if (position == null) return;
+
+        // Moving the vertex up to the top bucket one bucket at a time, then off the end.
+        int p = position;
+        for (int d = degreeAt(p); d < starts.length - 1; d += 1)
+        {
+            int last = starts[d + 1] - 1;
+            swap(p, last);
+            p = last;
+            starts[d + 1] -= 1;
+        }
+
+        size -= 1;
+        sorted[size] = null;
+        positions.remove(v);
+    }
+
+    public void edgeInserted(V u, V v, E e)
+    {
+        ensurePositions();
+        Integer position = positions.get(v);
+        if (position == null) return;
+
+        // Making room for a new top bucket if the vertex is already in the top one.
+        int d = degreeAt(position);
+        if (d + 2 == starts.length)
+        {
+            starts = Arrays.copyOf(starts, starts.length + 1);
+            starts[starts.length - 1] = size;
+        }
+
+        // Swapping the vertex to the end of its bucket, which then becomes the start of the next bucket.
+        int last = starts[d + 1] - 1;
+        swap(position, last);
+        starts[d + 1] -= 1;
+    }
+
+    public void edgeRemoved(V u, V v)
+    {
+        ensurePositions();
+        Integer position = positions.get(v);
+        if (position == null) return;
+
+        // Swapping the vertex to the start of its bucket, which then becomes the end of the previous bucket.
+        int d = degreeAt(position);
+        if (d == 0) return;
+
+        int first = starts[d];
+        swap(position, first);
+        starts[d] += 1;
+    }
+
+    /**
+     * Checks the index against one rebuilt from scratch as random edges (directed and undirected) and vertices are
+     * inserted into and removed from a graph, comparing every vertex's degree, the highest degree, and the vertices in
+     * random ranges of degrees (which must be the same vertices, in order of degree).
+     */
+    public static void main(String[] args)
+    {
+        int n = 1000, changes = 20000, checkEvery = 50;
+        Random random = new Random(13);
+
+        ObservableGraph<Integer, Integer> graph =
+                new ObservableGraph<Integer, Integer>(new AdjacencyMapGraph<Integer, Integer>());
+        for (int v = 0; v < n; v += 1) graph.insertVertex(v);
+        for (int i = 0; i < 5 * n; i += 1) graph.insertUndirected(random.nextInt(n), random.nextInt(n), i);
+
+        DegreeIndex<Integer, Integer> index = new DegreeIndex<Integer, Integer>(graph);
+        graph.addListener(index);
+
+        int checks = 0, mismatches = 0;
+        for (int i = 0; i < changes; i += 1)
+        {
+            int u = random.nextInt(n), v = random.nextInt(n), kind = random.nextInt(10);
+
+            if (kind < 4)
+            {
+                if (graph.hasVertex(u) && graph.hasVertex(v)) graph.insertUndirected(u, v, i);
+            }
+            else if (kind < 5)
+            {
+                if (graph.hasVertex(u) && graph.hasVertex(v)) graph.insertDirected(u, v, i);
+            }
+            else if (kind < 8)
+            {
+                // Removing a random edge out of u (both ways, unless the change is a directed one).
+                if (graph.hasVertex(u) && graph.outDegree(u) > 0)
+                {
+                    int skip = random.nextInt(graph.outDegree(u));
+                    for (Integer w : graph.outNeighbors(u))
+                    {
+                        if (skip-- > 0) continue;
+                        v = w;
+                        break;
+                    }
+
+                    if (kind < 7) graph.removeUndirected(u, v);
+                    else graph.removeDirected(u, v);
+                }
+            }
+            else
+            {
+                // Removing a vertex, or putting it back (without its edges).
+                if (graph.hasVertex(u)) graph.removeVertex(u);
+                else graph.insertVertex(u);
+            }
+
+            if (i % checkEvery != 0) continue;
+
+            // Comparing with an index built from scratch.
+            DegreeIndex<Integer, Integer> fresh = new DegreeIndex<Integer, Integer>(graph);
+            checks += 1;
+
+            boolean same = index.numVertices() == fresh.numVertices() && index.maxDegree() == fresh.maxDegree();
+            for (int w = 0; w < n; w += 1)
+            {
+                if (index.degree(w) != (graph.hasVertex(w) ? graph.inDegree(w) : -1)) same = false;
+            }
+
+            for (int range = 0; range < 10; range += 1)
+            {
+                int low = random.nextInt(fresh.maxDegree() + 2) - 1, high = low + random.nextInt(4);
+                List<Integer> vertices = index.verticesByDegree(low, high);
+
+                if (!new HashSet<Integer>(vertices).equals(new HashSet<Integer>(fresh.verticesByDegree(low, high))))
+                    same = false;
+
+                for (int j = 1; j < vertices.size(); j += 1)
+                {
+                    if (graph.inDegree(vertices.get(j - 1)) > graph.inDegree(vertices.get(j))) same = false;
+                }
+            }
+
+            if (!same) mismatches += 1;
+        }
+
+        System.out.println("Changes: " + changes + ", Checks: " + checks + ", Mismatches: " + mismatches + ", Index: "
+                + index.numVertices() + " vertices, highest degree " + index.maxDegree());
+    }
+
+    /**
+     * The degree of the bucket that the given index of the sorted array is in.
+     */
+    private int degreeAt(int position)
+    {
+        // Finding the last bucket starting at or before the position (which is the non-empty one holding it).
+        int low = 0, high = starts.length - 2;
+        while (low < high)
+        {
+            int middle = (low + high + 1) >>> 1;
+            if (starts[middle] <= position) low = middle;
+            else high = middle - 1;
+        }
+
+        return low;
+    }
+
+    /**
+     * Builds the map from vertex to position the first time it is needed (i.e. the first time the graph changes).
+     */
+    private void ensurePositions()
+    {
+        if (positions != null) return;
+
+        positions = new HashMap<V, Integer>(2 * size);
+        for (int i = 0; i < size; i += 1) positions.put(vertex(i), i);
+    }
+
+    private void swap(int i, int j)
+    {
+        V v = vertex(i), w = vertex(j);
+        place(w, i);
+        place(v, j);
+    }
+
+    private void place(V v, int position)
+    {
+        sorted[position] = v;
+        positions.put(v, position);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V vertex(int position)
+    {
+        return (V) sorted[position];
+    }
+
+    /**
+     * A view of sorted[from] ... sorted[to - 1].
+     */
+    private List<V> slice(int from, int to)
+    {
+        return new AbstractList<V>()
+        {
+            public V get(int index)
+            {
+                return vertex(from + Objects.checkIndex(index, to - from));
+            }
+
+            public int size()
+            {
+                return to - from;
+            }
+        };
+    }
+}
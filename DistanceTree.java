@@ -0,0 +1,202 @@
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Distance Tree
+ * A shortest path tree stored as primitive arrays over the dense vertex IDs of an IndexedGraph, rather than as a Graph.
+ *
+ * parent[i] is the ID of the next vertex on a shortest path from vertex i back to the root (-1 for the root and for
+ * unreached vertices), and dist[i] is the separation of vertex i from the root (-1 if unreached). The order array
+ * holds the reached vertices in the order BFS visited them, which is also sorted by separation, so the vertices at
+ * each separation are a contiguous bucket of it; levelStarts records where each bucket starts.
+ *
+ * @param <V> The type of vertices.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class DistanceTree<V>
+{
+    protected IndexedGraph<V, ?> graph; // The graph the BFS was run on (for translating between vertices and IDs).
+    protected int root; // ID of the root (the center of the universe).
+    protected int[] parent; // From ID to the ID of its parent in the tree.
+    protected int[] dist; // From ID to its separation from the root.
+    protected int[] order; // IDs of the reached vertices, in BFS order.
+    protected int reached; // How many vertices were reached (including the root).
+    protected long distanceSum; // Sum of the separations of all reached vertices.
+    protected int[] levelStarts; // Vertices at separation d: order[levelStarts[d]] ... order[levelStarts[d + 1] - 1]
+
+    /**
+     * Constructor - Wrapping the arrays produced by a BFS.
+     */
+    public DistanceTree(IndexedGraph<V, ?> graph, int root, int[] parent, int[] dist, int[] order, int reached, long distanceSum)
+    {
+        this.graph = graph;
+        this.root = root;
+        this.parent = parent;
+        this.dist = dist;
+        this.order = order;
+        this.reached = reached;
+        this.distanceSum = distanceSum;
+
+        // Finding where each separation starts in the order array (with one extra entry for the end).
+        int maxSeparation = reached == 0 ? -1 : dist[order[reached - 1]];
+        levelStarts = new int[maxSeparation + 2];
+
+        for (int index = 0, d = 0; d <= maxSeparation; d += 1)
+        {
+            while (dist[order[index]] < d) index += 1;
+            levelStarts[d] = index;
+        }
+        levelStarts[maxSeparation + 1] = reached;
+    }
+
+    /**
+     * The root of the tree.
+     */
+    public V root()
+    {
+        return graph.vertex(root);
+    }
+
+    /**
+     * How many vertices are in the tree (i.e. were reached by BFS, including the root).
+     */
+    public int numVertices()
+    {
+        return reached;
+    }
+
+    /**
+     * Whether v is in the tree (i.e. was reached by BFS).
+     */
+    public boolean hasVertex(V v)
+    {
+        int i = graph.indexOf(v);
+        return i >= 0 && dist[i] >= 0;
+    }
+
+    /**
+     * The separation of v from the root, or -1 if v was not reached.
+     */
+    public int separation(V v)
+    {
+        int i = graph.indexOf(v);
+        return i < 0 ? -1 : dist[i];
+    }
+
+    /**
+     * The separation of the vertex with the given dense ID from the root, or -1 if it was not reached.
+     */
+    public int separationById(int id)
+    {
+        return dist[id];
+    }
+
+    /**
+     * The vertices in the tree, in the order they were reached (i.e. sorted by separation).
+     */
+    public List<V> vertices()
+    {
+        return new AbstractList<V>()
+        {
+            public V get(int index)
+            {
+                return graph.vertex(order[index]);
+            }
+
+            public int size()
+            {
+                return reached;
+            }
+        };
+    }
+
+    /**
+     * The greatest separation of any vertex in the tree (-1 if the tree is empty).
+     */
+    public int maxSeparation()
+    {
+        return levelStarts.length - 2;
+    }
+
+    /**
+     * Vertices By Separation
+     * The vertices with separation between low and high (inclusive), sorted by separation, straight from the buckets
+     * of the order array (so the cost is in proportion to the number of vertices returned).
+     */
+    public List<V> verticesBySeparation(int low, int high)
+    {
+        int from = levelStarts[Math.max(0, Math.min(low, maxSeparation() + 1))];
+        int to = levelStarts[Math.max(0, Math.min(high, maxSeparation()) + 1)];
+
+        return new AbstractList<V>()
+        {
+            public V get(int index)
+            {
+                return graph.vertex(order[from + index]);
+            }
+
+            public int size()
+            {
+                return Math.max(0, to - from);
+            }
+        };
+    }
+
+    /**
+     * Get Path
+     * Constructs a path from the vertex back to the root, following the parent array.
+     *
+     * @param v The vertex from which to construct a path (which must be in the tree).
+     */
+    public List<V> getPath(V v)
+    {
+        int i = graph.indexOf(v);
+
+        // The path has one more vertex than the separation, so the ArrayList can be sized exactly.
+        List<V> path = new ArrayList<V>(dist[i] + 1);
+
+        // Adding the vertex itself, then following the parent array up to the root.
+        path.add(v);
+        for (i = parent[i]; i >= 0; i = parent[i])
+            path.add(graph.vertex(i));
+
+        return path;
+    }
+
+    /**
+     * Missing Vertices
+     * Determines which vertices are in the graph but were not reached by BFS.
+     */
+    public Set<V> missingVertices()
+    {
+        Set<V> missingVertices = new HashSet<V>();
+
+        for (int i = 0; i < dist.length; i += 1)
+        {
+            if (dist[i] < 0) missingVertices.add(graph.vertex(i));
+        }
+
+        return missingVertices;
+    }
+
+    /**
+     * How much memory (in bytes) the arrays of the tree take up.
+     */
+    public long sizeInBytes()
+    {
+        return (long) Integer.BYTES * (parent.length + dist.length + order.length + levelStarts.length);
+    }
+
+    /**
+     * Average Separation
+     * The average distance-from-root over the (other) vertices in the tree, from the running sum kept during BFS.
+     */
+    public double averageSeparation()
+    {
+        return ((double) distanceSum) / (reached - 1);
+    }
+}
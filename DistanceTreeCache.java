@@ -0,0 +1,157 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Distance Tree Cache
+ * Keeps the BFS trees of recently used centers of the universe, so that switching back to a recent center does not
+ * need another BFS. The cache is bounded by the memory its trees take up (rather than by their number, since a tree
+ * takes memory in proportion to the size of the graph), and when it is full the least recently used trees are
+ * evicted first. It counts hits and misses, and as a GraphListener it empties itself when the graph changes (so it
+ * should listen to the graph the trees are built from, or to the graph that is frozen into it). The game's graph is
+ * frozen once it is loaded, so the game never registers the cache with an ObservableGraph, and there it is never emptied.
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class DistanceTreeCache<V, E> implements GraphListener<V, E>
+{
+    private Function<V, DistanceTree<V>> search; // Builds the tree from a center (e.g. with GraphLibrary.distanceTree).
+    private long capacity; // The most memory (in bytes) the trees may take up (the newest tree is always kept).
+    private long size; // The memory (in bytes) the trees take up.
+    private Map<V, DistanceTree<V>> trees; // From center to tree, from least to most recently used.
+    private long hits, misses;
+    private long clears; // How many times the cache has been emptied.
+
+    /**
+     * Constructor
+     *
+     * @param search Builds the tree from a center (e.g. center -> GraphLibrary.distanceTree(graph, center)).
+     * @param capacity The most memory (in bytes) the cached trees may take up.
+     */
+    public DistanceTreeCache(Function<V, DistanceTree<V>> search, long capacity)
+    {
+        this.search = search;
+        this.capacity = capacity;
+        this.trees = new LinkedHashMap<V, DistanceTree<V>>(16, 0.75f, true); // Iterating in access order.
+    }
+
+    /**
+     * Get
+     * The BFS tree from the center, from the cache if it is there, or otherwise built and added to the cache. The tree
+     * is built outside the lock, so that threads building trees for different centers do not wait for each other.
+     */
+    public DistanceTree<V> get(V center)
+    {
+        long generation;
+        synchronized (this)
+        {
+            DistanceTree<V> tree = trees.get(center);
+            if (tree != null)
+            {
+                hits += 1;
+                return tree;
+            }
+
+            misses += 1;
+            generation = clears;
+        }
+
+        DistanceTree<V> tree = search.apply(center);
+
+        synchronized (this)
+        {
+            // Not adding the tree if the cache was emptied while it was being built (the graph may have changed), or if
+            // another thread has added one in the meantime.
+            if (generation != clears || trees.containsKey(center)) return tree;
+
+            trees.put(center, tree);
+            size += tree.sizeInBytes();
+
+            // Evicting the least recently used trees until the rest fit (always keeping the one just built).
+            Iterator<DistanceTree<V>> eldest = trees.values().iterator();
+            while (size > capacity && trees.size() > 1)
+            {
+                size -= eldest.next().sizeInBytes();
+                eldest.remove();
+            }
+        }
+
+        return tree;
+    }
+
+    /**
+     * Empties the cache (the counters are kept).
+     */
+    public synchronized void clear()
+    {
+        trees.clear();
+        size = 0;
+        clears += 1;
+    }
+
+    /**
+     * How many trees are in the cache.
+     */
+    public synchronized int numTrees()
+    {
+        return trees.size();
+    }
+
+    /**
+     * How much memory (in bytes) the trees in the cache take up.
+     */
+    public synchronized long sizeInBytes()
+    {
+        return size;
+    }
+
+    /**
+     * How many calls to get() found the tree in the cache.
+     */
+    public synchronized long hits()
+    {
+        return hits;
+    }
+
+    /**
+     * How many calls to get() had to build the tree.
+     */
+    public synchronized long misses()
+    {
+        return misses;
+    }
+
+    // Any change to the graph can change any tree, so the cache is simply emptied.
+
+    public void vertexInserted(V v)
+    {
+        clear();
+    }
+
+    public void vertexRemoved(V v)
+    {
+        clear();
+    }
+
+    public void edgeInserted(V u, V v, E e)
+    {
+        clear();
+    }
+
+    public void edgeRemoved(V u, V v)
+    {
+        clear();
+    }
+
+    /**
+     * Returns a string representation of the cache's contents and counters.
+     */
+    public synchronized String toString()
+    {
+        return "Trees: " + trees.size() + " (" + size + " bytes), Hits: " + hits + ", Misses: " + misses;
+    }
+}
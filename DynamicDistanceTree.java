@@ -0,0 +1,389 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Dynamic Distance Tree
+ * A shortest path tree from a root (following out-edges, like GraphLibrary.bfs) that repairs itself as the graph
+ * changes, rather than being rebuilt with another BFS. Register it as a GraphListener on the ObservableGraph it was
+ * built from (as main() does). The game's graph is frozen once it is loaded, so the game itself does not use one.
+ *
+ * When an edge u -> v is added and gives v a shorter path, v and whichever of its descendants also get shorter paths
+ * are relabeled, spreading out from v. When the tree edge to v is removed, v first looks for another parent at the same
+ * separation; if there is none, v's subtree is orphaned, and the orphans are searched again (in order of separation)
+ * from their in-neighbors outside the subtree. Vertices outside the affected subtree are never touched.
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class DynamicDistanceTree<V, E> implements GraphListener<V, E>
+{
+    private Graph<V, E> graph; // The graph the tree is over.
+    private V root; // The root (the center of the universe), or null if it has been removed.
+    private Map<V, V> parent; // From each reached vertex (other than the root) to its parent in the tree.
+    private Map<V, Integer> dist; // From each reached vertex to its separation from the root.
+    private long distanceSum; // Sum of the separations of all reached vertices.
+
+    /**
+     * Constructor - Building the tree with a BFS from the root.
+     */
+    public DynamicDistanceTree(Graph<V, E> graph, V root)
+    {
+        this.graph = graph;
+        this.root = root;
+        this.parent = new HashMap<V, V>();
+        this.dist = new HashMap<V, Integer>();
+
+        dist.put(root, 0);
+        relax(List.of(root));
+    }
+
+    /**
+     * The root of the tree (null if it has been removed from the graph).
+     */
+    public V root()
+    {
+        return root;
+    }
+
+    /**
+     * How many vertices are in the tree (i.e. can be reached from the root, including the root).
+     */
+    public int numVertices()
+    {
+        return dist.size();
+    }
+
+    /**
+     * Whether v is in the tree.
+     */
+    public boolean hasVertex(V v)
+    {
+        return dist.containsKey(v);
+    }
+
+    /**
+     * The separation of v from the root, or -1 if v is not in the tree.
+     */
+    public int separation(V v)
+    {
+        Integer d = dist.get(v);
+        return d == null ? -1 : d;
+    }
+
+    /**
+     * The parent of v in the tree (null for the root, or if v is not in the tree).
+     */
+    public V parent(V v)
+    {
+        return parent.get(v);
+    }
+
+    /**
+     * Get Path
+     * Constructs a path from the vertex (which must be in the tree) back to the root, following parents.
+     */
+    public List<V> getPath(V v)
+    {
+        List<V> path = new ArrayList<V>(dist.get(v) + 1);
+
+        path.add(v);
+        for (V u = parent.get(v); u != null; u = parent.get(u))
+            path.add(u);
+
+        return path;
+    }
+
+    /**
+     * Missing Vertices
+     * Determines which vertices are in the graph but not in the tree.
+     */
+    public Set<V> missingVertices()
+    {
+        Set<V> missingVertices = new HashSet<V>();
+
+        for (V v : graph.vertices())
+        {
+            if (!dist.containsKey(v)) missingVertices.add(v);
+        }
+
+        return missingVertices;
+    }
+
+    /**
+     * Average Separation
+     * The average distance-from-root over the (other) vertices in the tree, from the running sum of separations.
+     */
+    public double averageSeparation()
+    {
+        return ((double) distanceSum) / (dist.size() - 1);
+    }
+
+    public void vertexInserted(V v)
+    {
+        // A new vertex has no edges yet, so it cannot be reached.
+    }
+
+    public void vertexRemoved(V v)
+    {
+        // The edges of the vertex have already been removed (so it has been dropped from the tree), unless it was the root.
+        if (v.equals(root))
+        {
+            root = null;
+            parent.clear();
+            dist.clear();
+            distanceSum = 0;
+        }
+    }
+
+    public void edgeInserted(V u, V v, E e)
+    {
+        // Only an edge from a reached vertex that gives v a shorter path makes a difference.
+        Integer du = dist.get(u);
+        Integer dv = dist.get(v);
+        if (du == null || (dv != null && dv <= du + 1)) return;
+
+        // Relabeling v, then spreading the shorter paths out from it.
+        setDist(v, u, du + 1);
+        relax(List.of(v));
+    }
+
+    public void edgeRemoved(V u, V v)
+    {
+        // Only removing the tree edge to v makes a difference (any other path is still as short as before).
+        if (!u.equals(parent.get(v))) return;
+
+        // If v itself was removed from the graph, its out-edges have already been dealt with, so it just leaves the tree.
+        if (!graph.hasVertex(v))
+        {
+            removeFromTree(v);
+            return;
+        }
+
+        // Looking for another parent at the same separation, which leaves everything else as it is.
+        int dv = dist.get(v);
+        for (V w : graph.inNeighbors(v))
+        {
+            Integer dw = dist.get(w);
+            if (dw != null && dw == dv - 1)
+            {
+                parent.put(v, w);
+                return;
+            }
+        }
+
+        // Otherwise, orphaning the subtree of v (the vertices whose tree path goes through v), found by following tree
+        // edges out from v.
+        List<V> orphans = new ArrayList<V>();
+        Set<V> orphaned = new HashSet<V>();
+        orphans.add(v);
+        orphaned.add(v);
+
+        for (int i = 0; i < orphans.size(); i += 1)
+        {
+            V x = orphans.get(i);
+            for (V w : graph.outNeighbors(x))
+            {
+                if (x.equals(parent.get(w)) && orphaned.add(w)) orphans.add(w);
+            }
+        }
+
+        for (V x : orphans) removeFromTree(x);
+
+        // Searching again from the orphans' in-neighbors outside the subtree, in order of the separation this gives them
+        // (so that each orphan is relabeled with its final separation the first time it comes off the queue).
+        PriorityQueue<Candidate<V>> candidates = new PriorityQueue<Candidate<V>>(Comparator.comparingInt(c -> c.dist));
+
+        for (V x : orphans)
+        {
+            for (V w : graph.inNeighbors(x))
+            {
+                Integer dw = dist.get(w);
+                if (dw != null) candidates.add(new Candidate<V>(x, w, dw + 1));
+            }
+        }
+
+        while (!candidates.isEmpty())
+        {
+            Candidate<V> candidate = candidates.poll();
+            if (dist.containsKey(candidate.vertex)) continue; // Already relabeled with a shorter (or equal) separation.
+
+            setDist(candidate.vertex, candidate.parent, candidate.dist);
+
+            for (V w : graph.outNeighbors(candidate.vertex))
+            {
+                if (orphaned.contains(w) && !dist.containsKey(w))
+                    candidates.add(new Candidate<V>(w, candidate.vertex, candidate.dist + 1));
+            }
+        }
+
+        // Any orphans that were not reached again are no longer connected to the root.
+    }
+
+    /**
+     * Checks the tree against a fresh GraphLibrary.distanceTree() as random edges (directed and undirected) and
+     * vertices are inserted into and removed from a sparse graph, comparing the separation of every vertex and the
+     * average separation, and that every vertex's parent is one step closer to the root along an edge of the graph.
+     */
+    public static void main(String[] args)
+    {
+        int n = 2000, changes = 20000, checkEvery = 50;
+        Random random = new Random(14);
+
+        // A sparse graph (about 1.5 edges per vertex), so that removing an edge often changes separations.
+        ObservableGraph<Integer, Integer> graph =
+                new ObservableGraph<Integer, Integer>(new AdjacencyMapGraph<Integer, Integer>());
+        for (int v = 0; v < n; v += 1) graph.insertVertex(v);
+        for (int i = 0; i < 3 * n / 2; i += 1) graph.insertUndirected(random.nextInt(n), random.nextInt(n), i);
+
+        DynamicDistanceTree<Integer, Integer> tree = new DynamicDistanceTree<Integer, Integer>(graph, 0);
+        graph.addListener(tree);
+
+        int checks = 0, mismatches = 0;
+        long repairNanos = 0, rebuildNanos = 0;
+
+        for (int i = 0; i < changes; i += 1)
+        {
+            int u = random.nextInt(n), v = random.nextInt(n), kind = random.nextInt(10);
+            long start = System.nanoTime();
+
+            if (kind < 4)
+            {
+                if (graph.hasVertex(u) && graph.hasVertex(v)) graph.insertUndirected(u, v, i);
+            }
+            else if (kind < 5)
+            {
+                if (graph.hasVertex(u) && graph.hasVertex(v)) graph.insertDirected(u, v, i);
+            }
+            else if (kind < 8)
+            {
+                // Removing a random edge out of u (both ways, unless the change is a directed one).
+                if (graph.hasVertex(u) && graph.outDegree(u) > 0)
+                {
+                    int skip = random.nextInt(graph.outDegree(u));
+                    for (Integer w : graph.outNeighbors(u))
+                    {
+                        if (skip-- > 0) continue;
+                        v = w;
+                        break;
+                    }
+
+                    if (kind < 7) graph.removeUndirected(u, v);
+                    else graph.removeDirected(u, v);
+                }
+            }
+            else if (kind < 9)
+            {
+                // Removing a vertex (other than the root), and putting it back without its edges.
+                if (u != 0 && graph.hasVertex(u)) graph.removeVertex(u);
+                else graph.insertVertex(u);
+            }
+            else
+            {
+                graph.insertVertex(u);
+            }
+
+            repairNanos += System.nanoTime() - start;
+            if (i % checkEvery != 0) continue;
+
+            // Comparing with a tree built from scratch.
+            start = System.nanoTime();
+            DistanceTree<Integer> fresh = GraphLibrary.distanceTree(new CSRGraph<Integer, Integer>(graph), 0);
+            rebuildNanos += System.nanoTime() - start;
+            checks += 1;
+
+            boolean same = tree.numVertices() == fresh.numVertices()
+                    && Math.abs(tree.averageSeparation() - fresh.averageSeparation()) < 1e-9;
+
+            for (Integer w : graph.vertices())
+            {
+                int separation = tree.separation(w);
+                if (separation != fresh.separation(w)) same = false;
+
+                Integer p = tree.parent(w);
+                if (separation > 0 && (p == null || !graph.hasEdge(p, w) || tree.separation(p) != separation - 1))
+                    same = false;
+            }
+
+            if (!same) mismatches += 1;
+        }
+
+        System.out.println("Changes: " + changes + ", Checks: " + checks + ", Mismatches: " + mismatches + ", Tree: "
+                + tree.numVertices() + "/" + graph.numVertices() + " vertices");
+        System.out.println("Repair: " + repairNanos / changes / 1000.0 + " us per change, Rebuild (freezing and BFS): "
+                + rebuildNanos / checks / 1000.0 + " us per tree");
+    }
+
+    /**
+     * Relax
+     * Spreads shorter separations out from the given vertices (which already have their own), breadth first, stopping
+     * wherever a vertex already has a separation at least as short.
+     */
+    private void relax(List<V> sources)
+    {
+        Queue<V> queue = new ArrayDeque<V>(sources);
+
+        while (!queue.isEmpty())
+        {
+            V u = queue.remove();
+            int du = dist.get(u);
+
+            for (V v : graph.outNeighbors(u))
+            {
+                Integer dv = dist.get(v);
+                if (dv == null || dv > du + 1)
+                {
+                    setDist(v, u, du + 1);
+                    queue.add(v);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts v in the tree (or moves it) with the given parent and separation, keeping the sum of separations up to date.
+     */
+    private void setDist(V v, V p, int d)
+    {
+        Integer old = dist.put(v, d);
+        if (old != null) distanceSum -= old;
+        distanceSum += d;
+        parent.put(v, p);
+    }
+
+    /**
+     * Takes v out of the tree, keeping the sum of separations up to date.
+     */
+    private void removeFromTree(V v)
+    {
+        Integer old = dist.remove(v);
+        if (old != null) distanceSum -= old;
+        parent.remove(v);
+    }
+
+    /**
+     * Helper class for the edgeRemoved() method: an orphan that can be reached again with the given separation.
+     */
+    private static class Candidate<V>
+    {
+        private final V vertex, parent;
+        private final int dist;
+
+        Candidate(V vertex, V parent, int dist)
+        {
+            this.vertex = vertex;
+            this.parent = parent;
+            this.dist = dist;
+        }
+    }
+}
@@ -2,6 +2,10 @@ import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Graph Library Class
@@ -42,6 +46,9 @@ public class GraphLibrary
         visited.add(source);
         queue.add(source);
 
+        // Counting the edges scanned, for Metrics.
+        long edges = 0;
+
         // While the queue is not still empty...
         while (!queue.isEmpty())
         {
@@ -51,6 +58,8 @@ public class GraphLibrary
             // Cycling through the outNeighbors of the removed element.
             for (V v: g.outNeighbors(u))
             {
+                edges += 1;
+
                 // Checking to make sure that the visited set does not contain the neighbor.
                 if (!visited.contains(v))
                 {
@@ -66,9 +75,283 @@ public class GraphLibrary
         }
 
         // Returning the graph.
+        Metrics.recordTraversal("bfs", visited.size(), edges);
         return bfsGraph;
     }
 
+    /**
+     * Distance Tree
+     * Using BFS over the dense vertex IDs of an IndexedGraph to find the shortest path tree for a current center of the
+     * universe. Returns the path tree as parent/distance arrays, so no objects are allocated per reached vertex.
+     * If the graph has intermediate vertices (e.g. movies in a BipartiteGraph), they are dropped from the tree, and the
+     * distances are divided by the number of hops per step of separation.
+     *
+     * The queue is an int array with one slot per vertex (each vertex is added at most once, so it never needs to wrap
+     * around), and once BFS is finished it holds the reached vertices in BFS order.
+     *
+     * The BFS is direction-optimizing: while the frontier is small, each frontier vertex scans its out-edges for
+     * unvisited neighbors (top-down), but once the edges out of the frontier outnumber a fraction of the edges out of
+     * the unvisited vertices, each unvisited vertex instead scans its in-edges for a frontier vertex (bottom-up). This is
+     * only done on dense graphs (such as a full co-star graph), since on sparse ones the bottom-up bookkeeping costs more
+     * than it saves. Bottom-up steps pick the same parents, and put the new frontier in the same order, as a top-down
+     * step would, so the tree is exactly the one bfs() builds.
+     *
+     * @param g The graph to perform the BFS algorithm on.
+     * @param source The source node for the BFS algorithm.
+     */
+    public static <V, E> DistanceTree<V> distanceTree(IndexedGraph<V, E> g, V source)
+    {
+        int[] offsets = g.outOffsets();
+        int[] targets = g.outTargets();
+        int n = offsets.length - 1;
+
+        // Creating the parent and distance arrays, where -1 indicates that a vertex has not been visited.
+        int[] parent = new int[n];
+        int[] dist = new int[n];
+        Arrays.fill(parent, -1);
+        Arrays.fill(dist, -1);
+
+        // Creating the queue, and adding the source node to it.
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+
+        int s = g.indexOf(source);
+        dist[s] = 0;
+        queue[tail++] = s;
+
+        // Keeping a running sum of the distances, for the average separation.
+        long distanceSum = 0;
+
+        // Keeping the number of edges out of the frontier and out of the unvisited vertices, to choose the direction.
+        long frontierEdges = offsets[s + 1] - offsets[s];
+        long unvisitedEdges = targets.length - frontierEdges;
+
+        // The state for bottom-up steps (only needed once a bottom-up step happens).
+        BottomUp bottomUpState = null;
+
+        // Counting the edges scanned by top-down steps (bottom-up steps count their own), for Metrics.
+        long scanned = 0;
+
+        // Bottom-up steps only pay off on graphs with many edges per vertex, so sparse graphs always stay top-down.
+        boolean dense = targets.length >= (long) DENSE_DEGREE * n;
+
+        // Processing one level at a time, where the frontier is queue[head] ... queue[tail - 1].
+        boolean bottomUp = false;
+        for (int level = 0; head < tail; level += 1)
+        {
+            int frontierStart = head, frontierEnd = tail;
+            long nextEdges = 0;
+
+            // Switching to bottom-up when the frontier gets large, and back to top-down when it gets small again.
+            if (!bottomUp && dense && frontierEdges * BOTTOM_UP_RATIO > unvisitedEdges)
+                bottomUp = true;
+            else if (bottomUp && (frontierEnd - frontierStart) * TOP_DOWN_RATIO < n)
+                bottomUp = false;
+
+            // Top-down step: cycling through the out-edges of each frontier vertex, in queue order.
+            if (!bottomUp)
+            {
+                scanned += frontierEdges;
+
+                for (; head < frontierEnd; head += 1)
+                {
+                    int u = queue[head];
+
+                    for (int edge = offsets[u]; edge < offsets[u + 1]; edge += 1)
+                    {
+                        int v = targets[edge];
+
+                        // Checking to make sure that the neighbor has not been visited.
+                        if (dist[v] < 0)
+                        {
+                            // Setting the distance and parent, then adding the neighbor to the queue.
+                            dist[v] = level + 1;
+                            parent[v] = u;
+                            queue[tail++] = v;
+                            distanceSum += level + 1;
+                            nextEdges += offsets[v + 1] - offsets[v];
+                        }
+                    }
+                }
+            }
+
+            // Bottom-up step: every unvisited vertex looks for a parent on the frontier.
+            else
+            {
+                if (bottomUpState == null) bottomUpState = new BottomUp(dist, tail);
+
+                head = frontierEnd;
+                tail = bottomUpState.step(g, level, frontierStart, frontierEnd, dist, parent, queue);
+
+                for (int i = frontierEnd; i < tail; i += 1)
+                {
+                    distanceSum += level + 1;
+                    nextEdges += offsets[queue[i] + 1] - offsets[queue[i]];
+                }
+            }
+
+            frontierEdges = nextEdges;
+            unvisitedEdges -= nextEdges;
+        }
+
+        if (bottomUpState != null) scanned += bottomUpState.scanned;
+        Metrics.recordTraversal("distanceTree", tail, scanned);
+
+        // Returning the tree, without any intermediate vertices.
+        if (g.hops() == 1)
+            return new DistanceTree<V>(g, s, parent, dist, queue, tail, distanceSum);
+        else
+            return withoutIntermediateVertices(g, s, parent, dist, queue, tail);
+    }
+
+    /**
+     * Without Intermediate Vertices
+     * Helper function for the distanceTree() method, which turns a BFS over a graph with intermediate vertices into a
+     * tree over just the graph's vertices, skipping over the intermediate vertices between a vertex and its parent.
+     */
+    private static <V> DistanceTree<V> withoutIntermediateVertices(IndexedGraph<V, ?> g, int s, int[] parent, int[] dist,
+                                                                   int[] queue, int tail)
+    {
+        int n = g.numVertices();
+        int hops = g.hops();
+
+        int[] treeParent = new int[n];
+        int[] treeDist = new int[n];
+        int[] order = new int[n];
+        Arrays.fill(treeParent, -1);
+        Arrays.fill(treeDist, -1);
+
+        int reached = 0;
+        long distanceSum = 0;
+
+        // Cycling through the vertices in BFS order, keeping only the vertices of the graph.
+        for (int i = 0; i < tail; i += 1)
+        {
+            int v = queue[i];
+            if (v >= n) continue;
+
+            // Following the parent array back by one step of separation.
+            int p = v;
+            for (int hop = 0; hop < hops && p >= 0; hop += 1)
+                p = parent[p];
+
+            treeParent[v] = p;
+            treeDist[v] = dist[v] / hops;
+            order[reached++] = v;
+            distanceSum += treeDist[v];
+        }
+
+        return new DistanceTree<V>(g, s, treeParent, treeDist, order, reached, distanceSum);
+    }
+
+    // Only consider bottom-up steps when the average out-degree is at least DENSE_DEGREE.
+    private static final int DENSE_DEGREE = 32;
+
+    // Switch to bottom-up once the frontier has more than 1/BOTTOM_UP_RATIO of the unvisited vertices' edges.
+    private static final int BOTTOM_UP_RATIO = 14;
+
+    // Switch back to top-down once the frontier has fewer than 1/TOP_DOWN_RATIO of the vertices.
+    private static final int TOP_DOWN_RATIO = 24;
+
+    /**
+     * Bottom Up
+     * Helper class for the distanceTree() method, holding the list of unvisited vertices kept across bottom-up steps.
+     * It is only created once the BFS takes its first bottom-up step, so a BFS that stays top-down allocates nothing.
+     */
+    private static class BottomUp
+    {
+        private final int[] unvisited; // The vertices that have not been visited yet, as a compact list.
+        private int unvisitedCount;
+        private long scanned; // The edges scanned by every step so far, for Metrics.
+
+        BottomUp(int[] dist, int tail)
+        {
+            unvisited = new int[dist.length - tail];
+            for (int v = 0; v < dist.length; v += 1)
+            {
+                if (dist[v] < 0) unvisited[unvisitedCount++] = v;
+            }
+        }
+
+        /**
+         * Bottom-Up Step
+         * Finds the next level by having every unvisited vertex scan its in-edges for a vertex on the frontier
+         * (queue[frontierStart] ... queue[frontierEnd - 1]), stopping at the first one it finds.
+         *
+         * The first frontier vertex found is not necessarily the parent a top-down step would have chosen (the one that
+         * comes first in the queue), so the parents are then assigned by walking the frontier in queue order, exactly
+         * like a top-down step, except that it only looks at the new vertices and stops as soon as all of them have a
+         * parent. This also adds them to the queue in the same order a top-down step would have.
+         *
+         * @return The new tail of the queue.
+         */
+        int step(IndexedGraph<?, ?> g, int level, int frontierStart, int frontierEnd, int[] dist, int[] parent, int[] queue)
+        {
+            int[] inOffsets = g.inOffsets();
+            int[] inTargets = g.inTargets();
+            int[] offsets = g.outOffsets();
+            int[] targets = g.outTargets();
+
+            // Finding the new vertices, and keeping the vertices that are still unvisited at the front of the list.
+            int found = 0, remaining = 0;
+
+            for (int i = 0; i < unvisitedCount; i += 1)
+            {
+                int v = unvisited[i];
+
+                // Dropping vertices that a top-down step has visited since the list was last filtered.
+                if (dist[v] >= 0) continue;
+
+                boolean next = false;
+                int edge = inOffsets[v];
+                for (; edge < inOffsets[v + 1]; edge += 1)
+                {
+                    if (dist[inTargets[edge]] == level)
+                    {
+                        next = true;
+                        break;
+                    }
+                }
+
+                scanned += edge - inOffsets[v] + (next ? 1 : 0);
+
+                if (next)
+                {
+                    dist[v] = level + 1;
+                    found += 1;
+                }
+                else
+                {
+                    unvisited[remaining++] = v;
+                }
+            }
+
+            unvisitedCount = remaining;
+
+            // Assigning parents in queue order, until every new vertex has one.
+            int tail = frontierEnd;
+            for (int head = frontierStart; head < frontierEnd && found > 0; head += 1)
+            {
+                int u = queue[head];
+                scanned += offsets[u + 1] - offsets[u];
+
+                for (int edge = offsets[u]; edge < offsets[u + 1]; edge += 1)
+                {
+                    int v = targets[edge];
+
+                    if (dist[v] == level + 1 && parent[v] < 0)
+                    {
+                        parent[v] = u;
+                        queue[tail++] = v;
+                        found -= 1;
+                    }
+                }
+            }
+
+            return tail;
+        }
+    }
+
     /**
      * Get Path
      * Given a shortest path tree and a vertex, we construct a path from the vertex back to the center of the universe.
@@ -101,6 +384,115 @@ public class GraphLibrary
         return path;
     }
 
+    /**
+     * Shortest Path
+     * Using a bidirectional BFS to find a shortest path from one vertex to another, without building a whole path tree.
+     * One search goes forward along out-edges from the start, the other goes backward along in-edges from the end, and
+     * each step expands a full level of whichever frontier is smaller, until the two searches meet.
+     *
+     * @param g The graph to find the path in.
+     * @param from The vertex at the start of the path.
+     * @param to The vertex at the end of the path.
+     * @return The path, with the edge labels from getLabel(), or null if there is no path.
+     */
+    public static <V, E> GraphPath<V, E> shortestPath(Graph<V, E> g, V from, V to)
+    {
+        // Creating new HashMaps for the vertices each search has visited, pointing to the previous vertex in the search.
+        Map<V, V> forwardParents = new HashMap<V, V>();
+        Map<V, V> backwardParents = new HashMap<V, V>();
+
+        // Creating new HashMaps for the separation of each visited vertex from the start (or end) of its search.
+        Map<V, Integer> forwardDepths = new HashMap<V, Integer>();
+        Map<V, Integer> backwardDepths = new HashMap<V, Integer>();
+
+        // Adding the start and end to their searches.
+        forwardParents.put(from, null);
+        forwardDepths.put(from, 0);
+        backwardParents.put(to, null);
+        backwardDepths.put(to, 0);
+
+        List<V> forwardFrontier = new ArrayList<V>();
+        List<V> backwardFrontier = new ArrayList<V>();
+        forwardFrontier.add(from);
+        backwardFrontier.add(to);
+
+        // The edge where the searches meet (from meetFrom to meetTo), and the length of the path through it.
+        V meetFrom = null, meetTo = null;
+        int bestLength = from.equals(to) ? 0 : Integer.MAX_VALUE;
+        if (bestLength == 0) meetFrom = meetTo = from;
+
+        // Counting the edges scanned, for Metrics.
+        long edges = 0;
+
+        // While the searches have not met, and both still have somewhere to go...
+        while (meetFrom == null && !forwardFrontier.isEmpty() && !backwardFrontier.isEmpty())
+        {
+            // Expanding whichever frontier is smaller.
+            boolean forward = forwardFrontier.size() <= backwardFrontier.size();
+
+            List<V> frontier = forward ? forwardFrontier : backwardFrontier;
+            Map<V, V> parents = forward ? forwardParents : backwardParents;
+            Map<V, Integer> depths = forward ? forwardDepths : backwardDepths;
+            Map<V, Integer> otherDepths = forward ? backwardDepths : forwardDepths;
+
+            List<V> nextFrontier = new ArrayList<V>();
+
+            for (V u: frontier)
+            {
+                int depth = depths.get(u);
+
+                for (V w: forward ? g.outNeighbors(u) : g.inNeighbors(u))
+                {
+                    edges += 1;
+
+                    // If the other search has visited the neighbor, this is a path (keeping the shortest in this level).
+                    Integer otherDepth = otherDepths.get(w);
+                    if (otherDepth != null && depth + 1 + otherDepth < bestLength)
+                    {
+                        bestLength = depth + 1 + otherDepth;
+                        meetFrom = forward ? u : w;
+                        meetTo = forward ? w : u;
+                    }
+
+                    // Otherwise, adding the neighbor to this search if it has not been visited yet.
+                    if (!parents.containsKey(w))
+                    {
+                        parents.put(w, u);
+                        depths.put(w, depth + 1);
+                        nextFrontier.add(w);
+                    }
+                }
+            }
+
+            if (forward) forwardFrontier = nextFrontier;
+            else backwardFrontier = nextFrontier;
+        }
+
+        Metrics.recordTraversal("shortestPath", forwardParents.size() + backwardParents.size(), edges);
+
+        // If the searches never met, there is no path.
+        if (meetFrom == null) return null;
+
+        // Following the forward search back to the start, then the backward search on to the end.
+        LinkedList<V> vertices = new LinkedList<V>();
+        for (V v = meetFrom; v != null; v = forwardParents.get(v))
+            vertices.addFirst(v);
+
+        if (meetTo != meetFrom)
+        {
+            for (V v = meetTo; v != null; v = backwardParents.get(v))
+                vertices.addLast(v);
+        }
+
+        // Looking up the label on each edge along the path.
+        List<V> path = new ArrayList<V>(vertices);
+        List<E> labels = new ArrayList<E>();
+        for (int i = 0; i + 1 < path.size(); i += 1)
+            labels.add(g.getLabel(path.get(i), path.get(i + 1)));
+
+        return new GraphPath<V, E>(path, labels);
+    }
+
     /**
      * Missing Vertices
      * Given a graph and a subgraph (here the shortest path tree), determine which vertices are in the graph but not
@@ -177,6 +569,498 @@ public class GraphLibrary
         }
     }
 
+    /**
+     * Average Separations
+     * Finding the average separation of every source vertex, using the multi-source BFS below so that each pass over
+     * the adjacency arrays serves 64 sources at once. Batches of sources are split across cores with fork/join.
+     *
+     * @param g The graph to perform the BFS algorithm on.
+     * @param sources The vertices to find the average separation of.
+     * @return Average separations indexed by the dense ID of the vertex (NaN for vertices that are not sources).
+     */
+    public static <V, E> double[] averageSeparations(IndexedGraph<V, E> g, Collection<V> sources)
+    {
+        int n = g.numVertices();
+        long[] distanceSums = new long[n];
+        int[] reachedCounts = new int[n];
+
+        multiSourceBfs(g, sources, distanceSums, reachedCounts);
+
+        // Dividing the sum by the number of (other) vertices reached, for each source.
+        double[] separations = new double[n];
+        Arrays.fill(separations, Double.NaN);
+
+        for (V source: sources)
+        {
+            int i = g.indexOf(source);
+            separations[i] = ((double) distanceSums[i]) / (reachedCounts[i] - 1);
+        }
+
+        return separations;
+    }
+
+    /**
+     * Approximate Average Separations
+     * Estimating the average separation of every candidate from a BFS out of a random sample of them (pivots), rather
+     * than out of all of them, following Eppstein & Wang. A candidate's estimate is its mean distance to the pivots,
+     * scaled to leave out itself. By Hoeffding's inequality (and a union bound over the candidates), sampling
+     * ln(2N / (1 - confidence)) / (2 epsilon^2) pivots out of N puts every estimate within epsilon times the diameter of
+     * the true value at once, with the given confidence. The diameter is bounded by twice the greatest separation from
+     * the first pivot, which gives the error bound stated in the result. If the sample would be all the candidates, the
+     * exact values are found instead.
+     *
+     * @param g The graph to perform the BFS algorithm on.
+     * @param candidates The vertices to estimate the average separation of, which must all be connected to each other
+     *                   (e.g. the vertices of a DistanceTree).
+     * @param epsilon The allowed error, as a fraction of the diameter.
+     * @param confidence The probability that every estimate is within the error bound (e.g. 0.95).
+     * @param random The source of randomness for choosing the pivots.
+     */
+    public static <V, E> SeparationEstimates approximateAverageSeparations(IndexedGraph<V, E> g, List<V> candidates,
+                                                                         double epsilon, double confidence, Random random)
+    {
+        int n = g.numVertices();
+        int candidateCount = candidates.size();
+        int sampleSize = (int) Math.min(candidateCount,
+                Math.ceil(Math.log(2.0 * candidateCount / (1 - confidence)) / (2 * epsilon * epsilon)));
+
+        if (sampleSize >= candidateCount)
+            return new SeparationEstimates(averageSeparations(g, candidates), candidateCount, candidateCount, 0, confidence);
+
+        // Choosing the pivots without replacement (a partial Fisher-Yates shuffle of a copy of the candidates).
+        List<V> pivots = new ArrayList<V>(candidates);
+        for (int i = 0; i < sampleSize; i += 1)
+            Collections.swap(pivots, i, i + random.nextInt(candidateCount - i));
+        pivots = pivots.subList(0, sampleSize);
+
+        // Adding up the distances from the pivots to every vertex.
+        AtomicLongArray targetSums = new AtomicLongArray(n);
+        int[] ids = new int[sampleSize];
+        for (int i = 0; i < sampleSize; i += 1)
+            ids[i] = g.indexOf(pivots.get(i));
+
+        ForkJoinPool.commonPool().invoke(new MultiSourceTask(g.outOffsets(), g.outTargets(), n, g.hops(), ids, 0, sampleSize,
+                null, null, targetSums));
+
+        // Scaling each candidate's mean distance to the pivots (including a pivot's 0 to itself) by N / (N - 1).
+        double scale = (double) candidateCount / ((long) sampleSize * (candidateCount - 1));
+        double[] estimates = new double[n];
+        Arrays.fill(estimates, Double.NaN);
+
+        for (V candidate : candidates)
+        {
+            int i = g.indexOf(candidate);
+            estimates[i] = targetSums.get(i) * scale;
+        }
+
+        // The Hoeffding bound for distances between 0 and the diameter bound, scaled the same way.
+        int diameterBound = 2 * distanceTree(g, pivots.get(0)).maxSeparation();
+        double halfWidth = diameterBound * Math.sqrt(Math.log(2.0 * candidateCount / (1 - confidence)) / (2.0 * sampleSize))
+                * candidateCount / (candidateCount - 1);
+
+        return new SeparationEstimates(estimates, sampleSize, candidateCount, halfWidth, confidence);
+    }
+
+    /**
+     * Top Centers
+     * Finding the k candidates with the lowest average separation, without finishing a BFS from every candidate. The
+     * k-th lowest distance sum found so far is kept as a cutoff, and each BFS is abandoned as soon as a lower bound on
+     * its sum shows it cannot beat the cutoff (following Bergamini et al.): once every vertex within separation d of the
+     * source has been found, the rest are at least d + 1 away, and (in a graph without intermediate vertices) no more
+     * of them than there are edges out of separation d can be exactly d + 1 away. Candidates are visited from the
+     * highest degree down, so that low sums, and so a tight cutoff, turn up early; the searches are shared out across
+     * cores, and all read the same cutoff.
+     *
+     * The bound only works one way, so for negative k (the -k candidates with the highest average separation) every
+     * candidate is found exactly with averageSeparations(), and the highest are picked out.
+     *
+     * @param g The graph to perform the BFS algorithm on.
+     * @param candidates The vertices to rank, which must be all the vertices of one connected component (e.g. the
+     *                   vertices of a DistanceTree), in an undirected graph.
+     * @param k How many to find: the lowest average separations if positive, the highest if negative.
+     * @return Up to |k| candidates, in the order that the first |k| of the candidates sorted by average separation (in
+     * reverse, for negative k) would be in, ties included.
+     */
+    public static <V, E> List<V> topCenters(IndexedGraph<V, E> g, List<V> candidates, int k)
+    {
+        int candidateCount = candidates.size();
+
+        if (k < 0)
+        {
+            double[] separations = averageSeparations(g, candidates);
+            List<V> sorted = new ArrayList<V>(candidates);
+            sorted.sort(Comparator.comparingDouble((V v) -> separations[g.indexOf(v)]).reversed());
+
+            // Negating k as a long, since -k overflows for Integer.MIN_VALUE.
+            return new ArrayList<V>(sorted.subList(0, (int) Math.min(-(long) k, candidateCount)));
+        }
+
+        k = Math.min(k, candidateCount);
+        if (k == 0) return new ArrayList<V>();
+
+        // Ordering the candidates by degree, highest first (keeping them in order within a degree).
+        int[] ids = new int[candidateCount];
+        int[] degrees = new int[candidateCount];
+        Integer[] order = new Integer[candidateCount];
+
+        for (int i = 0; i < candidateCount; i += 1)
+        {
+            ids[i] = g.indexOf(candidates.get(i));
+            degrees[i] = g.outDegree(candidates.get(i));
+            order[i] = i;
+        }
+
+        Arrays.sort(order, Comparator.comparingInt((Integer i) -> degrees[i]).reversed());
+
+        // Visiting the candidates in parallel, each worker taking the next one in order until they run out.
+        TopCenters search = new TopCenters(g.outOffsets(), g.outTargets(), g.numVertices(), g.hops(), ids,
+                Arrays.stream(order).mapToInt(Integer::intValue).toArray(), k);
+
+        List<TopCentersWorker> workers = new ArrayList<TopCentersWorker>();
+        for (int i = 0; i < ForkJoinPool.commonPool().getParallelism(); i += 1)
+            workers.add(new TopCentersWorker(search));
+
+        ForkJoinPool.commonPool().invoke(new RecursiveAction()
+        {
+            protected void compute()
+            {
+                invokeAll(workers);
+            }
+        });
+
+        // Reading off the k best, in order.
+        List<V> top = new ArrayList<V>(k);
+        for (int i : search.ranking()) top.add(candidates.get(i));
+
+        return top;
+    }
+
+    /**
+     * Top Centers
+     * Helper class for the topCenters() method, holding what the workers share: the graph, the candidates (in the
+     * order to visit them) and the k lowest distance sums found so far (ties going to the candidate that comes first).
+     */
+    private static class TopCenters
+    {
+        private final int[] offsets, targets;
+        private final int counted, hops; // Only IDs below counted are counted, and distances are divided by hops.
+        private final int[] ids, order; // The candidates' dense IDs, and the order to visit them in.
+        private final int k;
+
+        private final AtomicInteger next = new AtomicInteger(); // The position in order of the next candidate to visit.
+        private final PriorityQueue<long[]> best; // The k best (sum, candidate) pairs found so far, worst first.
+        private volatile long cutoff = Long.MAX_VALUE; // The sum to beat: the worst of the best, once there are k.
+
+        TopCenters(int[] offsets, int[] targets, int counted, int hops, int[] ids, int[] order, int k)
+        {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.counted = counted;
+            this.hops = hops;
+            this.ids = ids;
+            this.order = order;
+            this.k = k;
+            this.best = new PriorityQueue<long[]>(k + 1, (a, b) -> a[0] != b[0] ? Long.compare(b[0], a[0]) : Long.compare(b[1], a[1]));
+        }
+
+        /**
+         * Adds the candidate's sum, if it is among the k best so far (bringing the cutoff down, once there are k).
+         */
+        synchronized void offer(long sum, int candidate)
+        {
+            best.add(new long[] { sum, candidate });
+            if (best.size() > k) best.remove();
+            if (best.size() == k) cutoff = best.peek()[0];
+        }
+
+        /**
+         * The k best candidates, best first.
+         */
+        synchronized int[] ranking()
+        {
+            List<long[]> entries = new ArrayList<long[]>(best);
+            entries.sort(best.comparator().reversed());
+
+            int[] ranking = new int[entries.size()];
+            for (int i = 0; i < ranking.length; i += 1)
+                ranking[i] = (int) entries.get(i)[1];
+
+            return ranking;
+        }
+    }
+
+    /**
+     * Top Centers Worker
+     * Helper class for the topCenters() method, which visits candidates until there are none left, with its own arrays
+     * for the BFS (reset after each one).
+     */
+    private static class TopCentersWorker extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final TopCenters search;
+
+        TopCentersWorker(TopCenters search)
+        {
+            this.search = search;
+        }
+
+        @Override
+        protected void compute()
+        {
+            int total = search.offsets.length - 1; // Including intermediate vertices.
+            int[] dist = new int[total];
+            Arrays.fill(dist, -1);
+            int[] queue = new int[total];
+
+            for (int position = search.next.getAndIncrement(); position < search.order.length; position = search.next.getAndIncrement())
+            {
+                int candidate = search.order[position];
+                long sum = prunedDistanceSum(search.ids[candidate], dist, queue);
+                if (sum >= 0) search.offer(sum, candidate);
+            }
+        }
+
+        /**
+         * A BFS from the source, abandoned (returning -1) once a lower bound on the distance sum is above the cutoff;
+         * otherwise, returns the distance sum.
+         */
+        private long prunedDistanceSum(int source, int[] dist, int[] queue)
+        {
+            int[] offsets = search.offsets, targets = search.targets;
+            int counted = search.counted, hops = search.hops;
+            int candidateCount = search.ids.length;
+
+            queue[0] = source;
+            dist[source] = 0;
+            int head = 0, tail = 1;
+            int reached = 1;
+            long sum = 0, scanned = 0;
+            boolean pruned = false;
+
+            for (int level = 1; head < tail && !pruned; level += 1)
+            {
+                // Expanding the frontier by one level.
+                int levelEnd = tail;
+                for (; head < levelEnd; head += 1)
+                {
+                    int u = queue[head];
+                    scanned += offsets[u + 1] - offsets[u];
+                    for (int edge = offsets[u]; edge < offsets[u + 1]; edge += 1)
+                    {
+                        int v = targets[edge];
+                        if (dist[v] >= 0) continue;
+
+                        dist[v] = level;
+                        queue[tail++] = v;
+
+                        if (v >= counted) continue;
+                        sum += level / hops;
+                        reached += 1;
+                    }
+                }
+
+                // Bounding the sum once every vertex within this separation has been found (and some are left).
+                if (level % hops != 0 || head == tail) continue;
+
+                int separation = level / hops;
+                long remaining = candidateCount - reached;
+                long nextLevel = remaining;
+
+                if (hops == 1)
+                {
+                    long edges = 0;
+                    for (int i = levelEnd; i < tail; i += 1)
+                        edges += offsets[queue[i] + 1] - offsets[queue[i]];
+                    nextLevel = Math.min(remaining, edges);
+                }
+
+                long lowerBound = sum + (separation + 1) * nextLevel + (separation + 2) * (remaining - nextLevel);
+                pruned = lowerBound > search.cutoff;
+            }
+
+            // Resetting the distances for the next BFS.
+            for (int i = 0; i < tail; i += 1)
+                dist[queue[i]] = -1;
+
+            Metrics.recordTraversal("topCenters", tail, scanned);
+
+            return pruned ? -1 : sum;
+        }
+    }
+
+    /**
+     * Multi-Source BFS
+     * Running a BFS from every source vertex, in batches of 64 sources that advance together. Each vertex keeps a long
+     * bitmask of which sources in the batch have seen it and which have it on their frontier, so one scan of a vertex's
+     * neighbors expands it for every source at once. Batches are split across cores with fork/join. Intermediate
+     * vertices (e.g. movies in a BipartiteGraph) are not counted, and distances are in steps of separation.
+     *
+     * @param g The graph to perform the BFS algorithm on.
+     * @param sources The vertices to run a BFS from.
+     * @param distanceSums Filled in with the sum of the distances from each source, indexed by dense ID.
+     * @param reachedCounts Filled in with how many vertices each source reached (including itself), indexed by dense ID.
+     */
+    public static <V, E> void multiSourceBfs(IndexedGraph<V, E> g, Collection<V> sources, long[] distanceSums, int[] reachedCounts)
+    {
+        // Converting the sources to dense IDs.
+        int[] ids = new int[sources.size()];
+        int count = 0;
+        for (V source: sources)
+            ids[count++] = g.indexOf(source);
+
+        // Running the batches in parallel, with each task writing only to the entries for its own sources.
+        ForkJoinPool.commonPool().invoke(new MultiSourceTask(g.outOffsets(), g.outTargets(), g.numVertices(), g.hops(),
+                ids, 0, ids.length, distanceSums, reachedCounts, null));
+    }
+
+    /**
+     * Multi-Source Task
+     * Helper class for the multiSourceBfs() method, which splits the range of sources in half until it fits in a single
+     * batch (one bit per source in a long).
+     */
+    private static class MultiSourceTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private static final int BATCH = Long.SIZE; // Sources per batch, one per bit.
+
+        private final int[] offsets, targets, sources;
+        private final int counted, hops; // Only IDs below counted are counted, and distances are divided by hops.
+        private final int from, to;
+        private final long[] distanceSums; // Sum of the distances from each source (if not null).
+        private final int[] reachedCounts; // How many vertices each source reached (if not null).
+        private final AtomicLongArray targetSums; // Sum of the distances to each vertex from all the sources (if not null).
+
+        MultiSourceTask(int[] offsets, int[] targets, int counted, int hops, int[] sources, int from, int to,
+                        long[] distanceSums, int[] reachedCounts, AtomicLongArray targetSums)
+        {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.counted = counted;
+            this.hops = hops;
+            this.sources = sources;
+            this.from = from;
+            this.to = to;
+            this.distanceSums = distanceSums;
+            this.reachedCounts = reachedCounts;
+            this.targetSums = targetSums;
+        }
+
+        @Override
+        protected void compute()
+        {
+            // Splitting the range in half (on a batch boundary), if it is still more than one batch.
+            if (to - from > BATCH)
+            {
+                int batches = (to - from + BATCH - 1) / BATCH;
+                int middle = from + (batches / 2) * BATCH;
+
+                invokeAll(new MultiSourceTask(offsets, targets, counted, hops, sources, from, middle, distanceSums, reachedCounts, targetSums),
+                        new MultiSourceTask(offsets, targets, counted, hops, sources, middle, to, distanceSums, reachedCounts, targetSums));
+                return;
+            }
+
+            // Otherwise, running the batch.
+            multiSourceBatch(offsets, targets, counted, hops, sources, from, to, distanceSums, reachedCounts, targetSums);
+        }
+    }
+
+    /**
+     * Multi-Source Batch
+     * Helper function for the multiSourceBfs() method, which runs a BFS from up to 64 sources at once.
+     *
+     * @param offsets The out-edge offsets of the graph.
+     * @param targets The out-edge targets of the graph.
+     * @param counted Only vertices with IDs below this are counted (the rest are intermediate vertices).
+     * @param hops How many levels of the BFS make up one step of separation.
+     * @param sources The dense IDs of the sources; sources[from + i] is given bit i.
+     * @param distanceSums If not null, filled in with the sum of the distances from each source.
+     * @param reachedCounts If not null, filled in with how many vertices each source reached.
+     * @param targetSums If not null, the distance from each source to each vertex is also added to the vertex's entry.
+     */
+    private static void multiSourceBatch(int[] offsets, int[] targets, int counted, int hops, int[] sources, int from, int to,
+                                         long[] distanceSums, int[] reachedCounts, AtomicLongArray targetSums)
+    {
+        int n = offsets.length - 1;
+        int batchSize = to - from;
+
+        // Which sources have seen each vertex, which have it on the current frontier, and which will on the next.
+        long[] seen = new long[n];
+        long[] visit = new long[n];
+        long[] visitNext = new long[n];
+
+        // Per-source totals for this batch, indexed by bit.
+        long[] sums = new long[batchSize];
+        int[] reached = new int[batchSize];
+
+        // Adding each source to its own frontier.
+        for (int i = 0; i < batchSize; i += 1)
+        {
+            seen[sources[from + i]] |= 1L << i;
+            visit[sources[from + i]] |= 1L << i;
+            reached[i] = 1;
+        }
+
+        // Counting the edges scanned (once per level for all the sources at once), for Metrics.
+        long scanned = 0;
+
+        // Advancing every source by one level at a time, until no source has anything left on its frontier.
+        boolean frontier = true;
+        for (int level = 1; frontier; level += 1)
+        {
+            // Pushing each vertex's frontier bits to its neighbors.
+            for (int u = 0; u < n; u += 1)
+            {
+                long bits = visit[u];
+                if (bits == 0) continue;
+
+                scanned += offsets[u + 1] - offsets[u];
+                for (int edge = offsets[u]; edge < offsets[u + 1]; edge += 1)
+                    visitNext[targets[edge]] |= bits;
+            }
+
+            // Keeping only the bits for sources that had not seen the vertex yet, and counting them.
+            frontier = false;
+            for (int v = 0; v < n; v += 1)
+            {
+                long bits = visitNext[v] & ~seen[v];
+                visitNext[v] = 0;
+                visit[v] = bits;
+
+                if (bits == 0) continue;
+
+                seen[v] |= bits;
+                frontier = true;
+
+                if (v >= counted) continue;
+
+                // Adding this level to the vertex's own total once for each source that newly reached it.
+                if (targetSums != null) targetSums.addAndGet(v, (long) Long.bitCount(bits) * (level / hops));
+
+                // Adding this level to the totals of each source that newly reached the vertex.
+                while (bits != 0)
+                {
+                    int i = Long.numberOfTrailingZeros(bits);
+                    sums[i] += level / hops;
+                    reached[i] += 1;
+                    bits &= bits - 1;
+                }
+            }
+        }
+
+        // Copying the totals out (if they are wanted), indexed by the dense ID of each source.
+        long reachedTotal = 0;
+        for (int i = 0; i < batchSize; i += 1)
+        {
+            if (distanceSums != null) distanceSums[sources[from + i]] = sums[i];
+            if (reachedCounts != null) reachedCounts[sources[from + i]] = reached[i];
+            reachedTotal += reached[i];
+        }
+
+        Metrics.recordTraversal("multiSourceBfs batch", reachedTotal, scanned);
+    }
+
     /**
      * Vertices By In Degree
      * Orders vertices in decreasing order by their in-degree.
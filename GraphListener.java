@@ -0,0 +1,32 @@
+/**
+ * Graph Listener - Notified of structural changes made to a graph through an ObservableGraph.
+ * Changes are reported after they have been made, one directed edge at a time (an undirected edge is reported as a
+ * pair of directed edges, and removing a vertex reports the removal of each of its edges before the vertex itself).
+ * Replacing the label on an existing edge does not change the structure of the graph, so it is not reported.
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+public interface GraphListener<V, E>
+{
+    /**
+     * The vertex was added to the graph.
+     */
+    public void vertexInserted(V v);
+
+    /**
+     * The vertex (whose edges have already been reported as removed) was removed from the graph.
+     */
+    public void vertexRemoved(V v);
+
+    /**
+     * A new edge from u to v was added with the label.
+     */
+    public void edgeInserted(V u, V v, E e);
+
+    /**
+     * The edge from u to v was removed.
+     */
+    public void edgeRemoved(V u, V v);
+}
@@ -0,0 +1,61 @@
+import java.util.List;
+
+/**
+ * Graph Path
+ * A path through a graph, given as its vertices in order along with the labels on the edges between them, so that
+ * labels.get(i) is the label on the edge from vertices.get(i) to vertices.get(i + 1).
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class GraphPath<V, E>
+{
+    private List<V> vertices;
+    private List<E> labels;
+
+    /**
+     * Constructor
+     *
+     * @param vertices The vertices along the path, in order.
+     * @param labels The labels on the edges between consecutive vertices (one fewer than the vertices).
+     */
+    public GraphPath(List<V> vertices, List<E> labels)
+    {
+        this.vertices = vertices;
+        this.labels = labels;
+    }
+
+    /**
+     * The vertices along the path, in order.
+     */
+    public List<V> vertices()
+    {
+        return vertices;
+    }
+
+    /**
+     * The labels on the edges along the path, in order.
+     */
+    public List<E> labels()
+    {
+        return labels;
+    }
+
+    /**
+     * How many edges are in the path (i.e. the separation between the first and last vertices).
+     */
+    public int length()
+    {
+        return labels.size();
+    }
+
+    /**
+     * Returns a string representation of the vertices along the path.
+     */
+    public String toString()
+    {
+        return vertices.toString();
+    }
+}
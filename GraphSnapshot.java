@@ -0,0 +1,382 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Graph Snapshot
+ * Saves a built co-star graph (a CSRGraph with movie labels), along with the movie titles, to a compact binary file,
+ * and loads it back with a memory map, so that the text files do not have to be parsed and the cliques expanded on
+ * every start.
+ *
+ * The file starts with a magic number, a format version, and the path, size and modification time of each source
+ * text file; a snapshot whose version or sources do not match is ignored (and rebuilt by the caller). Then come the
+ * vertex names, the movie map (ID and title), the distinct labels as lists of movie IDs, and the CSR arrays, with a label
+ * ID for each edge (so labels shared by both directions of an edge stay shared). The file ends with a CRC32C of
+ * everything before it. All numbers are big-endian.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class GraphSnapshot
+{
+    private static final int MAGIC = 0x4B424753; // "KBGS"
+    private static final int VERSION = 2;
+    private static final int WINDOW_SIZE = 1 << 30; // Bytes mapped at a time (a MappedByteBuffer is at most 2 GB).
+
+    /**
+     * The snapshot file that goes with the given connections file.
+     */
+    public static String snapshotFile(String connectionsFile)
+    {
+        return connectionsFile + ".snapshot";
+    }
+
+    /**
+     * Save
+     * Writes the graph to the snapshot file (through a temporary file, so a reader never sees a partial snapshot).
+     *
+     * @param g The graph to save.
+     * @param movieMap From movie ID to title.
+     * @param file The snapshot file.
+     * @param sources The text files the graph was built from.
+     */
+    public static void save(CSRGraph<String, MovieLabel> g, Map<Integer, String> movieMap, String file, String... sources) throws IOException
+    {
+        Path target = Paths.get(file).toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        try
+        {
+            CRC32C checksum = new CRC32C();
+            OutputStream fileOutput = Files.newOutputStream(temporary);
+
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(fileOutput, checksum), 1 << 16)))
+            {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                writeSources(output, sources);
+
+                // Vertex names, in dense ID order.
+                int n = g.numVertices();
+                output.writeInt(n);
+                for (int i = 0; i < n; i += 1) writeString(output, g.vertex(i));
+
+                // The movie map, in its iteration order.
+                output.writeInt(movieMap.size());
+                for (Map.Entry<Integer, String> movie : movieMap.entrySet())
+                {
+                    output.writeInt(movie.getKey());
+                    writeString(output, movie.getValue());
+                }
+
+                // Numbering the distinct labels (by identity).
+                boolean symmetric = g.inOffsets() == g.outOffsets();
+                Map<MovieLabel, Integer> labelIds = new IdentityHashMap<MovieLabel, Integer>();
+                List<MovieLabel> labels = new ArrayList<MovieLabel>();
+
+                int[] outLabelIds = labelIds(g, false, labelIds, labels);
+                int[] inLabelIds = symmetric ? null : labelIds(g, true, labelIds, labels);
+
+                output.writeInt(labels.size());
+                for (MovieLabel label : labels)
+                {
+                    output.writeInt(label.size());
+                    for (int i = 0; i < label.size(); i += 1) output.writeInt(label.movie(i));
+                }
+
+                // The edges, sharing the in-edge arrays with the out-edge arrays if the graph is symmetric.
+                output.writeInt(g.numEdges());
+                writeInts(output, g.outOffsets());
+                writeInts(output, g.outTargets());
+                writeInts(output, outLabelIds);
+
+                output.writeBoolean(symmetric);
+                if (!symmetric)
+                {
+                    output.writeInt(g.inTargets().length);
+                    writeInts(output, g.inOffsets());
+                    writeInts(output, g.inTargets());
+                    writeInts(output, inLabelIds);
+                }
+
+                // The checksum of everything so far.
+                output.flush();
+                output.writeInt((int) checksum.getValue());
+            }
+
+            Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Load
+     * Reads the graph back from the snapshot file, or returns null if there is no snapshot, or it is from another
+     * version of the format, or any of the text files has changed since it was saved.
+     *
+     * @param file The snapshot file.
+     * @param movieMap Filled in with the movie map (from movie ID to title) saved along with the graph.
+     * @param sources The text files the graph is built from.
+     * @throws IOException If the snapshot is corrupt (e.g. the checksum does not match).
+     */
+    public static CSRGraph<String, MovieLabel> load(String file, Map<Integer, String> movieMap, String... sources) throws IOException
+    {
+        Path path = Paths.get(file);
+        if (!Files.exists(path)) return null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long end = channel.size() - Integer.BYTES; // Where the checksum starts.
+            if (end < 2 * Integer.BYTES) throw new IOException("Snapshot " + file + " is truncated");
+
+            MappedInput input = new MappedInput(channel, end);
+
+            // Checking the header before anything else, since a stale snapshot is expected rather than an error.
+            if (input.readInt() != MAGIC) throw new IOException(file + " is not a graph snapshot");
+            if (input.readInt() != VERSION) return null;
+            if (!readSources(input).equals(describeSources(sources))) return null;
+
+            // Checking the whole file against the checksum.
+            CRC32C checksum = new CRC32C();
+            for (long position = 0; position < end; position += WINDOW_SIZE)
+                checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, end - position)));
+
+            ByteBuffer stored = ByteBuffer.allocate(Integer.BYTES);
+            channel.read(stored, end);
+            if (stored.getInt(0) != (int) checksum.getValue())
+                throw new IOException("Snapshot " + file + " is corrupt (checksum mismatch)");
+
+            // Vertex names.
+            Object[] vertices = new Object[input.readInt()];
+            for (int i = 0; i < vertices.length; i += 1) vertices[i] = input.readString();
+
+            // The movie map.
+            for (int k = input.readInt(); k > 0; k -= 1)
+            {
+                int movie = input.readInt();
+                movieMap.put(movie, input.readString());
+            }
+
+            // The labels (single-movie labels are interned by MovieLabel.of()).
+            MovieLabel[] labels = new MovieLabel[input.readInt()];
+            for (int i = 0; i < labels.length; i += 1)
+                labels[i] = MovieLabel.of(input.readInts(new int[input.readInt()]));
+
+            // The edges.
+            int m = input.readInt();
+            int[] outOffsets = input.readInts(new int[vertices.length + 1]);
+            int[] outTargets = input.readInts(new int[m]);
+            Object[] outLabels = toLabels(input.readInts(new int[m]), labels);
+
+            if (input.readBoolean())
+                return new CSRGraph<String, MovieLabel>(vertices, outOffsets, outTargets, outLabels, outOffsets, outTargets, outLabels);
+
+            int inM = input.readInt();
+            int[] inOffsets = input.readInts(new int[vertices.length + 1]);
+            int[] inTargets = input.readInts(new int[inM]);
+            Object[] inLabels = toLabels(input.readInts(new int[inM]), labels);
+
+            return new CSRGraph<String, MovieLabel>(vertices, outOffsets, outTargets, outLabels, inOffsets, inTargets, inLabels);
+        }
+    }
+
+    /**
+     * Label IDs
+     * Numbers the labels on the out-edges (or in-edges) of the graph, adding any new labels to the table, and returns
+     * the label ID of each edge (-1 for a null label).
+     */
+    private static int[] labelIds(CSRGraph<String, MovieLabel> g, boolean in, Map<MovieLabel, Integer> labelIds,
+                                  List<MovieLabel> labels)
+    {
+        int m = in ? g.inTargets().length : g.outTargets().length;
+        int[] ids = new int[m];
+
+        for (int edge = 0; edge < m; edge += 1)
+        {
+            MovieLabel label = in ? g.inLabel(edge) : g.label(edge);
+            if (label == null)
+            {
+                ids[edge] = -1;
+                continue;
+            }
+
+            Integer id = labelIds.get(label);
+            if (id == null)
+            {
+                id = labels.size();
+                labelIds.put(label, id);
+                labels.add(label);
+            }
+
+            ids[edge] = id;
+        }
+
+        return ids;
+    }
+
+    /**
+     * Looks up the label for each label ID.
+     */
+    private static Object[] toLabels(int[] ids, MovieLabel[] labels)
+    {
+        Object[] result = new Object[ids.length];
+        for (int i = 0; i < ids.length; i += 1)
+            result[i] = ids[i] < 0 ? null : labels[ids[i]];
+        return result;
+    }
+
+    /**
+     * The path, size and modification time of each source file, as recorded in (and compared against) the header.
+     */
+    private static List<String> describeSources(String... sources) throws IOException
+    {
+        List<String> descriptions = new ArrayList<String>();
+
+        for (String source : sources)
+        {
+            Path path = Paths.get(source).toRealPath();
+            descriptions.add(path + "|" + Files.size(path) + "|" + Files.getLastModifiedTime(path).toMillis());
+        }
+
+        return descriptions;
+    }
+
+    private static void writeSources(DataOutputStream output, String... sources) throws IOException
+    {
+        List<String> descriptions = describeSources(sources);
+        output.writeInt(descriptions.size());
+        for (String description : descriptions) writeString(output, description);
+    }
+
+    private static List<String> readSources(MappedInput input) throws IOException
+    {
+        List<String> descriptions = new ArrayList<String>();
+        for (int k = input.readInt(); k > 0; k -= 1) descriptions.add(input.readString());
+        return descriptions;
+    }
+
+    /**
+     * Writes a string as its length in UTF-8 bytes (-1 for null) followed by the bytes.
+     */
+    private static void writeString(DataOutputStream output, String s) throws IOException
+    {
+        if (s == null)
+        {
+            output.writeInt(-1);
+            return;
+        }
+
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    /**
+     * Writes an array of ints, a block at a time.
+     */
+    private static void writeInts(DataOutputStream output, int[] values) throws IOException
+    {
+        ByteBuffer block = ByteBuffer.allocate(1 << 16);
+
+        for (int from = 0; from < values.length; )
+        {
+            int count = Math.min(values.length - from, block.capacity() / Integer.BYTES);
+            block.clear();
+            block.asIntBuffer().put(values, from, count);
+            output.write(block.array(), 0, count * Integer.BYTES);
+            from += count;
+        }
+    }
+
+    /**
+     * Helper class for the load() method, which reads through a file by mapping it a window at a time.
+     */
+    private static class MappedInput
+    {
+        private final FileChannel channel;
+        private final long end; // Where the readable part of the file ends.
+        private long windowStart; // Position in the file of the start of the window.
+        private MappedByteBuffer window;
+
+        MappedInput(FileChannel channel, long end)
+        {
+            this.channel = channel;
+            this.end = end;
+        }
+
+        /**
+         * Makes sure there are at least the given number of bytes left in the window, moving it along if not.
+         */
+        private void ensure(int bytes) throws IOException
+        {
+            if (window != null && window.remaining() >= bytes) return;
+
+            long position = window == null ? 0 : windowStart + window.position();
+            long size = Math.min(WINDOW_SIZE, end - position);
+            if (size < bytes) throw new IOException("Snapshot is truncated");
+
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        }
+
+        int readInt() throws IOException
+        {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        boolean readBoolean() throws IOException
+        {
+            ensure(1);
+            return window.get() != 0;
+        }
+
+        String readString() throws IOException
+        {
+            int length = readInt();
+            if (length < 0) return null;
+
+            ensure(length);
+            byte[] bytes = new byte[length];
+            window.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Fills the array with ints read from the file, in bulk.
+         */
+        int[] readInts(int[] values) throws IOException
+        {
+            for (int from = 0; from < values.length; )
+            {
+                ensure(Integer.BYTES);
+                int count = Math.min(values.length - from, window.remaining() / Integer.BYTES);
+
+                window.asIntBuffer().get(values, from, count);
+                window.position(window.position() + count * Integer.BYTES);
+                from += count;
+            }
+
+            return values;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Indexed Graph - A read-only graph whose vertices have dense integer IDs (0 to numVertices() - 1), and which exposes
+ * its edges as compressed sparse row arrays for the BFS methods in GraphLibrary.
+ *
+ * The arrays may include extra "intermediate" vertices with IDs from numVertices() upward (e.g. movies, when actors
+ * and movies are both vertices), in which case a single step of separation between two vertices of the graph takes
+ * hops() edges in the arrays.
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+public interface IndexedGraph<V, E> extends Graph<V, E>
+{
+    /**
+     * The dense ID of the vertex (0 to numVertices() - 1), or -1 if it is not in the graph.
+     */
+    public int indexOf(V v);
+
+    /**
+     * The vertex with the given dense ID.
+     */
+    public V vertex(int id);
+
+    /**
+     * Out-edge offsets, indexed by dense ID (including any intermediate vertices). Must not be modified.
+     */
+    public int[] outOffsets();
+
+    /**
+     * Out-edge targets, as dense IDs. Must not be modified.
+     */
+    public int[] outTargets();
+
+    /**
+     * In-edge offsets, indexed by dense ID (including any intermediate vertices). Must not be modified.
+     */
+    public int[] inOffsets();
+
+    /**
+     * In-edge sources, as dense IDs. Must not be modified.
+     */
+    public int[] inTargets();
+
+    /**
+     * How many edges in the arrays make up one step of separation (1, unless there are intermediate vertices).
+     */
+    public int hops();
+}
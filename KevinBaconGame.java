@@ -1,7 +1,15 @@
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.Charset;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
 
 /**
  * Kevin Bacon Game
@@ -17,9 +25,9 @@ import java.util.*;
  * This builds a tree of shortest paths from every actor who can reach Kevin Bacon back to Kevin Bacon. More generally,
  * given a root, BFS builds a shortest-path tree from every vertex that can reach the root back to the root. It is a
  * tree where every vertex points to its parent, and the parent is the next vertex in a shortest path to the root. For
- * the purposes of this assignment, we will store the tree as a directed graph. Once the tree is constructed, we can
- * find the vertex for an actor of interest, and follow edges back to the root, tracking movies (edge labels) and
- * actors (vertices) along the way.
+ * the purposes of this assignment, we store the tree as parent/distance arrays (see DistanceTree). Once the tree is
+ * constructed, we can find the vertex for an actor of interest, and follow parents back to the root, tracking movies
+ * (edge labels) and actors (vertices) along the way.
  *
  * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
  */
@@ -28,174 +36,175 @@ public class KevinBaconGame
     // Instance Variables
     private String node;
     private Scanner scanner;
-    private Graph<String, Set<String>> mainGraph;
-    private Graph<String, Set<String>> erdosGraph;
+    private boolean bipartite;
+    private IndexedGraph<String, MovieLabel> mainGraph;
+    private Map<Integer, String> movieMap; // From movie ID to title, for printing the labels of mainGraph.
+    private DistanceTree<String> erdosTree;
+    private DistanceTreeCache<String, MovieLabel> erdosTrees; // Trees of recent centers of the universe.
+    private DegreeIndex<String, MovieLabel> degreeIndex; // Actors sorted by degree.
+    private ConnectedComponents<String> components; // Which actors are connected to which.
+    private AtomicReference<LandmarkIndex<String, MovieLabel>> landmarks = new AtomicReference<>(); // Built on first use.
+    private PrintStream out, err; // Where the results (and the error messages) are printed.
+    private String timedCommand; // The command handleInput() last carried out (the name acceptInput() times it under).
+
+    private static final int BATCH_BLOCK = 4096; // The most commands runBatch() runs at once.
+    private static final int BATCH_CHUNK = 64; // How many of them run one after another in the same task.
+    private static final int LANDMARKS = 16; // How many landmarks the a command estimates separations from.
+    private static final int SEARCH_EDGES = 100000; // The most edges the a command scans to make an estimate exact.
 
     /**
      * Constructor
      * Creating the corresponding graphs for the Kevin Bacon game.
      */
     public KevinBaconGame(String node, Scanner scanner, String actorMapFile, String movieMapFile, String connectionsFile)
+    {
+        this(node, scanner, actorMapFile, movieMapFile, connectionsFile, false);
+    }
+
+    /**
+     * Constructor
+     * Creating the corresponding graphs for the Kevin Bacon game, either as a co-star graph (an edge for every pair of
+     * actors in a movie) or as a bipartite graph (an edge for every actor-movie credit).
+     */
+    public KevinBaconGame(String node, Scanner scanner, String actorMapFile, String movieMapFile, String connectionsFile,
+                          boolean bipartite)
     {
         // Assigning the instance variables appropriately, given the constructor.
         this.node = node;
         this.scanner = scanner;
-        this.mainGraph = new AdjacencyMapGraph<>();
+        this.bipartite = bipartite;
+        this.out = System.out;
+        this.err = System.err;
 
-        // Try to initialize the mainGraph and construct the "erdosGraph", a simplified graph for shortest paths.
+        // Try to initialize the mainGraph and construct the "erdosTree", a simplified tree for shortest paths, timing
+        // each phase of loading.
         try
         {
+            long start = System.nanoTime();
             initializeMainGraph(actorMapFile, movieMapFile, connectionsFile);
+            start = recordPhase("load initializeMainGraph", start);
+            degreeIndex = new DegreeIndex<>(mainGraph);
+            start = recordPhase("load degreeIndex", start);
+            components = new ConnectedComponents<>(mainGraph);
+            start = recordPhase("load components", start);
             constructErdosGraph();
+            recordPhase("load constructErdosGraph", start);
+            Metrics.register();
         }
 
         // Catch the IOException and print out the message.
         catch (IOException e)
         {
-            System.out.println("Error: " + e.getMessage());
+            out.println("Error: " + e.getMessage());
         }
     }
 
     /**
-     * Initialize Main Graph
-     * Initializing the main Adjacency Map Graph from the input files.
+     * Constructor
+     * Starting a new session of a game that has already been loaded, with its own input, output and center of the
+     * universe (starting from the game's). The graph, the indexes and the cache of trees are shared with the game
+     * rather than loaded again; none of them change once loaded, so any number of sessions can run at once.
      */
-    public void initializeMainGraph(String actorMapFile, String movieMapFile, String connectionsFile) throws IOException
+    public KevinBaconGame(KevinBaconGame game, Scanner scanner, PrintStream out)
     {
-        // Creating new Maps for the actors, movies, and connections.
-        Map<Integer, String> actorMap = new HashMap<>();
-        Map<Integer, String> movieMap = new HashMap<>();
-        Map<Integer, List<Integer>> connectionsMap = new HashMap<>();
-
-        // Initializing the BufferedReaders for the actors, movies, and connections.
-        BufferedReader actorMapInput = new BufferedReader(new FileReader(actorMapFile));
-        BufferedReader movieMapInput = new BufferedReader(new FileReader(movieMapFile));
-        BufferedReader connections = new BufferedReader(new FileReader(connectionsFile));
+        this.node = game.node;
+        this.scanner = scanner;
+        this.bipartite = game.bipartite;
+        this.mainGraph = game.mainGraph;
+        this.movieMap = game.movieMap;
+        this.erdosTree = game.erdosTree;
+        this.erdosTrees = game.erdosTrees;
+        this.degreeIndex = game.degreeIndex;
+        this.components = game.components;
+        this.landmarks = game.landmarks;
+        this.out = out;
+        this.err = out;
+    }
 
-        String input;
+    /**
+     * Records how long a phase of loading took (from start until now), returning when it ended.
+     */
+    private static long recordPhase(String phase, long start)
+    {
+        long end = System.nanoTime();
+        Metrics.recordLatency(phase, end - start);
+        return end;
+    }
 
-        // Reading in the input from the actor input and making sure the input is there.
-        while ((input = actorMapInput.readLine()) != null && input.length() != 0)
+    /**
+     * Initialize Main Graph
+     * Initializing the main graph from the input files, either as a bipartite graph of credits, or as a frozen graph of
+     * co-stars built in parallel by CoStarGraphBuilder (and saved as a snapshot, which is loaded instead while the files
+     * are unchanged).
+     */
+    public void initializeMainGraph(String actorMapFile, String movieMapFile, String connectionsFile) throws IOException
+    {
+        // Loading the co-star graph from its snapshot instead, if it is still up to date.
+        String snapshotFile = GraphSnapshot.snapshotFile(connectionsFile);
+        if (!bipartite)
         {
-            // Splitting the input based on the | symbol.
-            String[] array = input.split("\\|");
-
-            // Checking to make sure the array length is greater than zero.
-            if (array.length > 0)
+            try
             {
-                // Adding the actorID and actorName to the actorMap.
-                int actorID = Integer.parseInt(array[0]);
-                String actorName = array[1];
-                actorMap.put(actorID, actorName);
+                movieMap = new HashMap<>();
+                mainGraph = GraphSnapshot.load(snapshotFile, movieMap, actorMapFile, movieMapFile, connectionsFile);
+                if (mainGraph != null) return;
             }
-        }
-
-        // Closing the actorMapInput.
-        actorMapInput.close();
-
-        input = "";
 
-        // Reading in the input from the movie input and making sure the input is there.
-        while ((input = movieMapInput.readLine()) != null && input.length() != 0)
-        {
-            // Splitting the input based on the | symbol.
-            String[] array = input.split("\\|");
-
-            // Checking to make sure the array length is greater than zero.
-            if (array.length > 0)
+            // A corrupt snapshot is rebuilt, just like a stale one.
+            catch (IOException e)
             {
-                // Adding the movieID and movieName to the movieMap.
-                int movieID = Integer.parseInt(array[0]);
-                String movieName = array[1];
-                movieMap.put(movieID, movieName);
+                err.println("Rebuilding snapshot: " + e.getMessage());
             }
         }
 
-        // Closing the actorMapInput.
-        movieMapInput.close();
+        // Reading in the actors, movies, and connections (see MovieDataLoader for the file format).
+        Map<Integer, String> actorMap = MovieDataLoader.readNames(actorMapFile);
+        movieMap = MovieDataLoader.readNames(movieMapFile);
+        Map<Integer, List<Integer>> connectionsMap = MovieDataLoader.readConnections(connectionsFile);
 
-        input = "";
-
-        // Reading in the input from the movie input and making sure the input is there.
-        while ((input = connections.readLine()) != null && input.length() != 0)
+        // In bipartite mode, the credits are the edges, so there is no need to link every pair of co-stars.
+        if (bipartite)
         {
-            // Splitting the input based on the | symbol.
-            String[] array = input.split("\\|");
-
-            // Checking to make sure the array length is greater than zero.
-            if (array.length > 0)
-            {
-                // Adding the movieID and movieName to the movieMap.
-                int movieID = Integer.parseInt(array[0]);
-                int actorID = Integer.parseInt(array[1]);
-
-                // Check to see if the connectionsMap already contains the key.
-                if (!connectionsMap.containsKey(movieID))
-                    connectionsMap.put(movieID, new ArrayList<Integer>());
-
-                connectionsMap.get(movieID).add(actorID);
-            }
+            mainGraph = new BipartiteGraph(actorMap, connectionsMap);
+            return;
         }
 
-        // Closing the actorMapInput.
-        connections.close();
+        // Building the co-star graph (an edge for every pair of actors in a movie) on every core, straight into a
+        // compact, read-only graph, and saving it for next time.
+        CSRGraph<String, MovieLabel> frozenGraph = CoStarGraphBuilder.build(actorMap, connectionsMap);
+        mainGraph = frozenGraph;
 
-        // Cycling through the IDs of the actorMap.
-        for (int ID : actorMap.keySet())
+        try
         {
-            // If the actorName is not null...
-            if (actorMap.get(ID) != null)
-                mainGraph.insertVertex(actorMap.get(ID)); // Add a new vertex to the mainGraph.
+            GraphSnapshot.save(frozenGraph, movieMap, snapshotFile, actorMapFile, movieMapFile, connectionsFile);
         }
 
-        // Cycling through the IDs of the connectionsMap.
-        for (int ID : connectionsMap.keySet())
+        // Not being able to save the snapshot only means the graph is rebuilt next time.
+        catch (IOException e)
         {
-            // Creating a new String with the name of the movie, given the ID.
-            String movie = movieMap.get(ID);
-
-            // Cycling through the connectionsMap for various actors.
-            for (int firstActorID : connectionsMap.get(ID))
-            {
-                for (int secondActorID : connectionsMap.get(ID))
-                {
-                    // Extracting the name of the actors from the actorMap, given their IDs.
-                    String firstActor = actorMap.get(firstActorID);
-                    String secondActor = actorMap.get(secondActorID);
-
-                    // Checking to make sure the first and second actor are not the same and that there is no current edge.
-                    if (firstActor != secondActor && !mainGraph.hasEdge(firstActor, secondActor))
-                    {
-                        // Creating a new Set to hold the list of movies.
-                        Set<String> edgeSetOfMovies = new HashSet<String>();
-
-                        // Adding the movie to the Set.
-                        edgeSetOfMovies.add(movie);
-
-                        // Inserting an undirected edge from the firstActor to the secondActor with the appropriate label.
-                        mainGraph.insertUndirected(firstActor, secondActor, edgeSetOfMovies);
-                    }
-
-                    // Checking to make sure the first and second actor are not the same and that there is a current edge.
-                    else if (firstActor != secondActor && mainGraph.hasEdge(firstActor, secondActor))
-                    {
-                        // Checking to make sure the edge does not already contain the movie.
-                        if (!mainGraph.getLabel(firstActor, secondActor).contains(movie))
-                            mainGraph.getLabel(firstActor, secondActor).add(movie); // Adding the movie to the label.
-                    }
-                }
-            }
+            err.println("Could not save snapshot: " + e.getMessage());
         }
     }
 
+    /**
+     * Get Main Graph
+     * The graph of actors the game is played on (for the benchmarks).
+     */
+    public IndexedGraph<String, MovieLabel> getMainGraph()
+    {
+        return mainGraph;
+    }
+
     /**
      * Construct Erdos Graph
      * Creates the "Erdos Graph" (simplified path tree) using Graph Library bfs function.
      */
     public void constructErdosGraph()
     {
-        // Uses the Graph Library bfs function, according to the mainGraph and a given node.
-        erdosGraph = GraphLibrary.bfs(mainGraph, node);
+        // Uses the Graph Library distanceTree function, according to the mainGraph and a given node, keeping the trees of
+        // recent centers (up to an eighth of the heap) so that switching back to one is instant.
+        erdosTrees = new DistanceTreeCache<>(center -> GraphLibrary.distanceTree(mainGraph, center), Runtime.getRuntime().maxMemory() / 8);
+        erdosTree = erdosTrees.get(node);
     }
 
     /**
@@ -204,22 +213,25 @@ public class KevinBaconGame
     public void initializeCommandLine()
     {
         // Print statements for starting the command line, given based on the problem set.
-        System.out.println("Commands:");
-        System.out.println("c <#>: list top (positive number) or bottom (negative) <#> centers of the universe, sorted by average separation");
-        System.out.println("d <low> <high>: list actors sorted by degree, with degree between low and high");
-        System.out.println("i: list actors with infinite separation from the current center");
-        System.out.println("p <name>: find path from <name> to current center of the universe");
-        System.out.println("s <low> <high>: list actors sorted by non-infinite separation from the current center, with separation between low and high");
-        System.out.println("u <name>: make <name> the center of the universe");
-        System.out.println("q: quit game");
-        System.out.println();
-        System.out.println(node + " is now the center of the acting universe, connected to " + (erdosGraph.numVertices() - 1)
-                + "/" + mainGraph.numVertices() + " actors with average separation " + GraphLibrary.averageSeparation(erdosGraph, node));
+        out.println("Commands:");
+        out.println("a <name>|<name>: estimate the separation between two actors from landmarks, without searching the whole graph");
+        out.println("b <name>|<name>: find path between two actors, without changing the center");
+        out.println("c <#> [<epsilon>]: list top (positive number) or bottom (negative) <#> centers of the universe, sorted by average separation (estimated, if epsilon is given)");
+        out.println("d <low> <high>: list actors sorted by degree, with degree between low and high");
+        out.println("i: list actors with infinite separation from the current center");
+        out.println("p <name>: find path from <name> to current center of the universe");
+        out.println("s <low> <high>: list actors sorted by non-infinite separation from the current center, with separation between low and high");
+        out.println("stats: show how long commands take, how much of the graph each search touches, and how often the trees of centers are cached");
+        out.println("u <name>: make <name> the center of the universe");
+        out.println("q: quit game");
+        out.println();
+        out.println(node + " is now the center of the acting universe, connected to " + (erdosTree.numVertices() - 1)
+                + "/" + mainGraph.numVertices() + " actors with average separation " + erdosTree.averageSeparation());
     }
 
     /**
      * Set Center Of Universe
-     * Sets a node to the center of the universe, reconstructing the erdosGraph tree.
+     * Sets a node to the center of the universe, reconstructing the erdosTree.
      *
      * @param node The node to set to the center of the universe.
      */
@@ -231,16 +243,16 @@ public class KevinBaconGame
             // If so, set the node appropriately.
             this.node = node;
 
-            // Reconstruct the erdosGraph and print out the new line about the center of the universe.
-            erdosGraph = GraphLibrary.bfs(mainGraph, node);
-            System.out.println(node + " is now the center of the acting universe, connected to " + (erdosGraph.numVertices() - 1)
-                    + "/" + mainGraph.numVertices() + " actors with average separation " + GraphLibrary.averageSeparation(erdosGraph, node));
+            // Reconstruct the erdosTree (unless it is cached) and print out the new line about the center of the universe.
+            erdosTree = erdosTrees.get(node);
+            out.println(node + " is now the center of the acting universe, connected to " + (erdosTree.numVertices() - 1)
+                    + "/" + mainGraph.numVertices() + " actors with average separation " + erdosTree.averageSeparation());
         }
 
         // Otherwise, indicate that an invalid input was given.
         else
         {
-            System.err.println("Invalid Center Of Universe");
+            err.println("Invalid Center Of Universe");
         }
     }
 
@@ -250,8 +262,8 @@ public class KevinBaconGame
      */
     public void displayInfinitelySeparatedActors()
     {
-        // Using the Graph Library to print out the missing vertices from the mainGraph and erdosGraph.
-        System.out.println(GraphLibrary.missingVertices(mainGraph, erdosGraph));
+        // The actors missing from the erdosTree are exactly those outside the center's component.
+        printList(components.verticesOutside(components.component(node)));
     }
 
     /**
@@ -260,14 +272,14 @@ public class KevinBaconGame
      */
     public void displayActorInformation(String actor)
     {
-        // Checking to make sure that both the mainGraph and erdosGraph have the vertex.
-        if (mainGraph.hasVertex(actor) && erdosGraph.hasVertex(actor))
+        // Checking to make sure that the actor is connected to the center (and so is in the erdosTree).
+        if (components.connected(actor, node))
         {
             // Creating a new List that holds the shortest path for a given actor.
-            List<String> shortestPath = GraphLibrary.getPath(erdosGraph, actor);
+            List<String> shortestPath = erdosTree.getPath(actor);
 
             // Printing out the actor's number (the length of the shortest path).
-            System.out.println(actor + "'s number is " + (shortestPath.size() - 1));
+            out.println(actor + "'s number is " + (shortestPath.size() - 1));
 
             // Setting currentActor (which will be modified) to the actor.
             String currentActor = actor;
@@ -279,7 +291,7 @@ public class KevinBaconGame
                 if (currentActor != nextActor)
                 {
                     // Printing out the output as appropriate and re-assigning the currentActor.
-                    System.out.println(currentActor + " appeared in " + mainGraph.getLabel(currentActor, nextActor) + " with " + nextActor);
+                    out.println(currentActor + " appeared in " + mainGraph.getLabel(currentActor, nextActor).titles(movieMap) + " with " + nextActor);
                     currentActor = nextActor;
                 }
             }
@@ -287,71 +299,125 @@ public class KevinBaconGame
 
         else if (mainGraph.hasVertex(actor))
         {
-            System.out.println(actor + "'s number is \u221e (infinity)");
+            out.println(actor + "'s number is \u221e (infinity)");
         }
 
         else
         {
-            System.err.println("No Actor Found");
+            err.println("No Actor Found");
         }
     }
 
     /**
-     * Display Actors By Degree
-     * Displays a list of the actors sorted by degree, with degree between low and high.
+     * Display Path Between Actors
+     * Displays a shortest path between two actors, using a bidirectional search rather than the current center's tree,
+     * so the center of the universe is left unchanged.
      */
-    public void displayActorsByDegree(int low, int high)
+    public void displayPathBetweenActors(String actor, String otherActor)
     {
-        // Creating a new PriorityQueue to sort the actors by degree (anonymous function used).
-        PriorityQueue<String> actorsByDegree = new PriorityQueue<String>((String firstActor, String secondActor) -> mainGraph.outDegree(firstActor) - mainGraph.outDegree(secondActor));
+        // Checking to make sure that the mainGraph has both vertices.
+        if (!mainGraph.hasVertex(actor) || !mainGraph.hasVertex(otherActor))
+        {
+            err.println("No Actor Found");
+            return;
+        }
 
-        // Cycling through the actors in the vertices of the mainGraph.
-        for (String actor : mainGraph.vertices())
+        // Finding a shortest path from the actor to the other actor (there is none unless they are connected).
+        GraphPath<String, MovieLabel> shortestPath = null;
+        if (components.connected(actor, otherActor))
+            shortestPath = GraphLibrary.shortestPath(mainGraph, actor, otherActor);
+
+        // If there is no path, the separation is infinite.
+        if (shortestPath == null)
         {
-            // Checking to make sure that the outDegree is between the low and high.
-            if (mainGraph.outDegree(actor) <= high && mainGraph.outDegree(actor) >= low)
-                actorsByDegree.add(actor); // Add the actor the PriorityQueue.
+            out.println(actor + "'s number relative to " + otherActor + " is \u221e (infinity)");
+            return;
         }
 
-        // Creating a new ArrayList to hold the sorted actors by degree.
-        List<String> sortedActorsByDegree = new ArrayList<String>();
+        // Printing out the actor's number (the length of the shortest path).
+        out.println(actor + "'s number relative to " + otherActor + " is " + shortestPath.length());
 
-        // Cycling through while the PriorityQueue is not empty.
-        while (!actorsByDegree.isEmpty())
-            sortedActorsByDegree.add(actorsByDegree.poll()); // Adding the elements in order.
+        // Cycling through the edges along the path, printing out the movie and the actors on each side.
+        List<String> actors = shortestPath.vertices();
+        for (int i = 0; i < shortestPath.length(); i += 1)
+            out.println(actors.get(i) + " appeared in " + shortestPath.labels().get(i).titles(movieMap) + " with " + actors.get(i + 1));
+    }
 
-        // Printing out the sorted actors by degree.
-        System.out.println(sortedActorsByDegree);
+    /**
+     * Display Estimated Separation
+     * Displays the separation between two actors as estimated by the landmark index (exact if a short search can settle
+     * it, and otherwise as a range), which takes microseconds rather than a search of the graph.
+     */
+    public void displayEstimatedSeparation(String actor, String otherActor)
+    {
+        // Checking to make sure that the mainGraph has both vertices.
+        if (!mainGraph.hasVertex(actor) || !mainGraph.hasVertex(otherActor))
+        {
+            err.println("No Actor Found");
+            return;
+        }
+
+        int[] bounds = landmarks().bounds(actor, otherActor, SEARCH_EDGES);
+        String estimate;
+
+        if (bounds[0] == LandmarkIndex.INFINITE) estimate = "\u221e (infinity)";
+        else if (bounds[0] == bounds[1]) estimate = String.valueOf(bounds[0]);
+        else if (bounds[1] == LandmarkIndex.INFINITE) estimate = "at least " + bounds[0];
+        else estimate = "between " + bounds[0] + " and " + bounds[1];
+
+        out.println(actor + "'s number relative to " + otherActor + " is " + estimate);
     }
 
     /**
-     * Display Actors By Separation
-     * Displays a list of the actors sorted by non-infinite separation from the current center, with separation between
-     * low and high.
+     * The landmark index, built the first time it is needed (once, even if several sessions need it at once).
      */
-    public void displayActorsBySeparation(int low, int high)
+    private LandmarkIndex<String, MovieLabel> landmarks()
     {
-        // Creating a new PriorityQueue to sort the actors by separation (anonymous function used).
-        PriorityQueue<String> actorsBySeparation = new PriorityQueue<String>((String firstActor, String secondActor) ->
-                GraphLibrary.getPath(erdosGraph, firstActor).size() - GraphLibrary.getPath(erdosGraph, secondActor).size());
+        LandmarkIndex<String, MovieLabel> index = landmarks.get();
+        if (index != null) return index;
 
-        // Cycling through the actors in the vertices of the erdosGraph.
-        for (String actor : erdosGraph.vertices())
+        synchronized (landmarks)
         {
-            // Checking to make sure that the separation is between the low and high.
-            if (GraphLibrary.getPath(erdosGraph, actor).size() <= high && GraphLibrary.getPath(erdosGraph, actor).size() >= low)
-                actorsBySeparation.add(actor); // Add the actor to the PriorityQueue.
+            if (landmarks.get() == null)
+            {
+                long start = System.nanoTime();
+                landmarks.set(new LandmarkIndex<>(mainGraph, LANDMARKS));
+                Metrics.recordLatency("load landmarks", System.nanoTime() - start);
+            }
+
+            return landmarks.get();
         }
+    }
 
-        // Creating a new ArrayList to hold the sorted actors by separation.
-        List<String> sortedActorsBySeparation = new ArrayList<String>();
+    /**
+     * Display Actors By Degree
+     * Displays a list of the actors sorted by degree, with degree between low and high.
+     */
+    public void displayActorsByDegree(int low, int high)
+    {
+        // Taking the actors straight from the degree index's buckets, which are already sorted (the mainGraph is
+        // undirected, so the in-degree it is sorted by is the same as the out-degree).
+        List<String> sortedActorsByDegree = degreeIndex.verticesByDegree(low, high);
 
-        // Cycling through while the PriorityQueue is not empty.
-        while (!actorsBySeparation.isEmpty())
-            sortedActorsBySeparation.add(actorsBySeparation.poll()); // Adding the elements in order.
+        // Printing out the sorted actors by degree.
+        printList(sortedActorsByDegree);
+    }
+
+    /**
+     * Display Actors By Separation
+     * Displays a list of the actors sorted by non-infinite separation from the current center, with separation between
+     * low and high.
+     */
+    public void displayActorsBySeparation(int low, int high)
+    {
+        // Taking the actors straight from the erdosTree's separation buckets, which are already sorted. As before, low and
+        // high are compared with the number of actors on the path to the center (one more than the separation), and are
+        // clamped at -1 (no separation is that low) rather than wrapping around for Integer.MIN_VALUE.
+        int lowSeparation = (int) Math.max(low - 1L, -1), highSeparation = (int) Math.max(high - 1L, -1);
+        List<String> sortedActorsBySeparation = erdosTree.verticesBySeparation(lowSeparation, highSeparation);
 
         // Printing out the sorted actors by separation.
-        System.out.println(sortedActorsBySeparation);
+        printList(sortedActorsBySeparation);
     }
 
     /**
@@ -360,8 +426,10 @@ public class KevinBaconGame
      */
     public void displayBestErdos(int value)
     {
+        // The degree index is sorted from lowest to highest, so the best are at the end.
+        List<String> verticesInDegree = degreeIndex.vertices();
         for (int i = 0; i < value; i += 1)
-            System.out.println(GraphLibrary.verticesByInDegree(mainGraph).get(i));
+            out.println(verticesInDegree.get(verticesInDegree.size() - 1 - i));
     }
 
     /**
@@ -370,9 +438,10 @@ public class KevinBaconGame
      */
     public void displayWorseErdos(int value)
     {
-        ArrayList<String> verticesInDegree = (ArrayList<String>) GraphLibrary.verticesByInDegree(mainGraph);
+        // The degree index is sorted from lowest to highest, so the worst are at the start.
+        List<String> verticesInDegree = degreeIndex.vertices();
         for (int i = 0; i < value; i += 1)
-            System.out.println(verticesInDegree.get(verticesInDegree.size() - 1 - i));
+            out.println(verticesInDegree.get(i));
     }
 
     /**
@@ -382,72 +451,100 @@ public class KevinBaconGame
      */
     public void displaySortedCentersOfUniverse(int value)
     {
-        // Creating a new Comparator, rather than using an anonymous function.
-        class CenterOfUniverseComparator implements Comparator<String>
-        {
-            @Override
-            public int compare(String firstActor, String secondActor)
-            {
-                // The compare() function is based on whether value is greater than or less than zero.
-                if (value > 0)
-                    return (int) (Math.signum(findAverageSeparation(firstActor) - findAverageSeparation(secondActor)));
-                else
-                    return (int) (Math.signum(findAverageSeparation(secondActor) - findAverageSeparation(firstActor)));
-            }
-        }
+        displaySortedCentersOfUniverse(value, 0);
+    }
+
+    /**
+     * Display Sorted Centers Of Universe
+     * As above, but with the average separations estimated from a random sample of actors when epsilon is positive,
+     * so that every estimate is within epsilon times the diameter of the graph (with 95% confidence).
+     */
+    public void displaySortedCentersOfUniverse(int value, double epsilon)
+    {
+        if (epsilon < 0 || epsilon >= 1) throw new IllegalArgumentException("epsilon must be between 0 and 1");
 
-        // Creating a new PriorityQueue to sort the centers (using the Comparator).
-        PriorityQueue<String> centersOfUniverse = new PriorityQueue<String>(new CenterOfUniverseComparator());
+        // Ranking the actors connected to the center by average separation.
+        List<String> centersOfUniverse;
+        SeparationEstimates estimates = null;
 
-        // Cycling through the actors in the vertices of the erdosGraph.
-        for (String actor : erdosGraph.vertices())
-            centersOfUniverse.add(actor); // Add the actor to the PriorityQueue.
+        if (epsilon > 0)
+        {
+            // Estimating every actor's average separation from a BFS per pivot, then sorting them all.
+            List<String> candidates = new ArrayList<String>(erdosTree.vertices());
+            estimates = GraphLibrary.approximateAverageSeparations(mainGraph, candidates, epsilon, 0.95, new Random());
+            double[] averageSeparations = estimates.estimates();
+
+            Comparator<String> comparator = Comparator.comparingDouble(actor -> averageSeparations[mainGraph.indexOf(actor)]);
+            candidates.sort(value > 0 ? comparator : comparator.reversed());
+            centersOfUniverse = candidates;
+        }
+        else
+        {
+            // Finding just the top (or bottom) actors exactly (for the top, cutting off the BFS from any that cannot make it).
+            centersOfUniverse = GraphLibrary.topCenters(mainGraph, erdosTree.vertices(), value);
+        }
 
         // Creating a new ArrayList to hold the sorted actors by separation.
         List<String> sortedCentersOfUniverse = new ArrayList<String>();
 
-        // Creating a new ArrayList to hold the missing vertices (infinite separation).
-        ArrayList<String> missingVerticesFromUniverse = new ArrayList<String>();
-
-        // Adding the missing vertices to the ArrayList.
-        for (String vertex: GraphLibrary.missingVertices(mainGraph, erdosGraph))
-            missingVerticesFromUniverse.add(vertex);
+        // The missing vertices (infinite separation) are those outside the center's component.
+        List<String> missingVerticesFromUniverse = components.verticesOutside(components.component(node));
 
-        // Cycling through up to the absolute value of the inputted value.
-        for (int i = 0; i < Math.abs(value); i += 1)
+        // Cycling through up to the absolute value of the inputted value (as a long, since it overflows for
+        // Integer.MIN_VALUE).
+        for (int i = 0; i < Math.abs((long) value); i += 1)
         {
-            // If the PriorityQueue is not empty...
-            if (!centersOfUniverse.isEmpty())
-                sortedCentersOfUniverse.add(centersOfUniverse.poll()); // Adding the elements in order.
+            // If there are still centers left...
+            if (i < centersOfUniverse.size())
+                sortedCentersOfUniverse.add(centersOfUniverse.get(i)); // Adding the elements in order.
             else
-                sortedCentersOfUniverse.add(missingVerticesFromUniverse.remove(0)); // Otherwise, add elements from missing vertices.
+                sortedCentersOfUniverse.add(missingVerticesFromUniverse.get(i - centersOfUniverse.size())); // Otherwise, add elements from missing vertices.
         }
 
-        // Printing out the sorted centers of the universe.
-        System.out.println(sortedCentersOfUniverse);
+        // Printing out the sorted centers of the universe (and how accurate they are, if they were estimated).
+        printList(sortedCentersOfUniverse);
+        if (estimates != null) out.println("Average separations " + estimates);
     }
 
     /**
-     * Find Average Separation
-     * Helper function for displaySortedCentersOfUniverse.
-     *
-     * @param node The node from which to construct an erdosGraph and find average separation.
+     * Accept Input
+     * Based on the command line rules for the game interface, timing each command (see Metrics).
      */
-    public double findAverageSeparation(String node)
+    public boolean acceptInput(String input)
     {
-        return GraphLibrary.averageSeparation(GraphLibrary.bfs(mainGraph, node), node);
+        long start = System.nanoTime();
+        try
+        {
+            return handleInput(input);
+        }
+
+        finally
+        {
+            Metrics.recordLatency("command " + timedCommand, System.nanoTime() - start);
+        }
     }
 
     /**
-     * Accept Input
-     * Based on the command line rules for the game interface.
+     * The command the input is for (its first word, in lower case).
      */
-    public boolean acceptInput(String input)
+    private static String commandOf(String input)
     {
+        return input.strip().split(" ")[0].toLowerCase();
+    }
+
+    /**
+     * Handle Input
+     * Carries out a single command.
+     */
+    private boolean handleInput(String input)
+    {
+        // Timing anything that is not a command as invalid.
+        timedCommand = "invalid";
+
         // Checking to see if the input is null or is nothing.
         if (input == null || input.length() <= 0)
         {
-            System.err.println("Invalid Input");
+            err.println("Invalid Input");
             return true;
         }
 
@@ -457,12 +554,13 @@ public class KevinBaconGame
         // If the length of the array is less than one, it is an invalid input.
         if (inputInfo.length < 1)
         {
-            System.err.println("Invalid Input");
+            err.println("Invalid Input");
             return true;
         }
 
         // The "command" is given by the first letter of the input, which we convert to lower case.
-        String command = inputInfo[0].toLowerCase();
+        String command = commandOf(input);
+        timedCommand = command;
 
         // If the command is 'q', we simply pass false to exit the program.
         if (command.equals("q"))
@@ -477,10 +575,20 @@ public class KevinBaconGame
             return true;
         }
 
+        // If the command is 'stats', we display the timings and traversal sizes recorded so far, and how well the cache
+        // of centers' trees is doing.
+        else if (command.equals("stats"))
+        {
+            out.print(Metrics.get().getReport());
+            out.println("Center trees (cache): " + erdosTrees);
+            return true;
+        }
+
         // Otherwise, if the length of the String array is less than two, it is an invalid input.
         else if (inputInfo.length < 2)
         {
-            System.err.println("Invalid Input");
+            timedCommand = "invalid";
+            err.println("Invalid Input");
             return true;
         }
 
@@ -509,12 +617,46 @@ public class KevinBaconGame
             // Otherwise, it is an invalid input.
             else
             {
-                System.err.println("Invalid Input");
+                err.println("Invalid Input");
             }
         }
 
+        // If the command is 'b'...
+        else if (command.equals("b"))
+        {
+            // We strip any trailing whitespace, then split the two names on the | symbol.
+            String[] actors = information.stripTrailing().split("\\|");
+
+            // Checking to make sure there are exactly two names.
+            if (actors.length != 2)
+            {
+                err.println("Invalid Input");
+                return true;
+            }
+
+            // Displaying the path between the actors.
+            displayPathBetweenActors(actors[0].strip(), actors[1].strip());
+        }
+
+        // If the command is 'a'...
+        else if (command.equals("a"))
+        {
+            // We strip any trailing whitespace, then split the two names on the | symbol.
+            String[] actors = information.stripTrailing().split("\\|");
+
+            // Checking to make sure there are exactly two names.
+            if (actors.length != 2)
+            {
+                err.println("Invalid Input");
+                return true;
+            }
+
+            // Displaying the estimated separation between the actors.
+            displayEstimatedSeparation(actors[0].strip(), actors[1].strip());
+        }
+
         // If the command is 'u'...
-        if (command.equals("u"))
+        else if (command.equals("u"))
         {
             // We strip any trailing whitespace.
             information = information.stripTrailing();
@@ -529,17 +671,17 @@ public class KevinBaconGame
             // Otherwise, it is an invalid input.
             else
             {
-                System.err.println("Invalid Input");
+                err.println("Invalid Input");
             }
         }
 
         // If the command is 'd'...
-        if (command.equals("d"))
+        else if (command.equals("d"))
         {
             // If the length of the inputInfo array is not three, it is an invalid input.
             if (inputInfo.length != 3)
             {
-                System.err.println("Invalid Input");
+                err.println("Invalid Input");
                 return true;
             }
 
@@ -557,18 +699,18 @@ public class KevinBaconGame
             // Catching any exception, indicating it is an invalid input.
             catch (Exception e)
             {
-                System.err.println("Invalid Input");
-                // System.err.println("\t" + e.getMessage());
+                err.println("Invalid Input");
+                // err.println("\t" + e.getMessage());
             }
         }
 
         // If the command is 's'...
-        if (command.equals("s"))
+        else if (command.equals("s"))
         {
             // If the length of the inputInfo array is not three, it is an invalid input.
             if (inputInfo.length != 3)
             {
-                System.err.println("Invalid Input");
+                err.println("Invalid Input");
                 return true;
             }
 
@@ -586,13 +728,13 @@ public class KevinBaconGame
             // Catching any exception, indicating it is an invalid input.
             catch (Exception e)
             {
-                System.err.println("Invalid Input");
-                // System.err.println("\t" + e.getMessage());
+                err.println("Invalid Input");
+                // err.println("\t" + e.getMessage());
             }
         }
 
         // if the command is 'c'...
-        if (command.equals("c"))
+        else if (command.equals("c"))
         {
             // We strip any trailing whitespace.
             information = information.stripTrailing();
@@ -601,30 +743,36 @@ public class KevinBaconGame
             if (information == null || information.length() <= 0)
             {
                 // It is an invalid input.
-                System.err.println("Invalid Input");
+                err.println("Invalid Input");
                 return true;
             }
 
             // Otherwise, we try-catch.
             try
             {
-                // Extracting the values by from parsing the information.
-                int value = Integer.parseInt(information);
+                // Extracting the value (and the epsilon, if there is one) by parsing the information.
+                String[] values = information.split(" ");
+                if (values.length > 2) throw new IllegalArgumentException();
+
+                int value = Integer.parseInt(values[0]);
 
-                // Displaying the sorted centers of the universe.
-                displaySortedCentersOfUniverse(value);
+                // Displaying the sorted centers of the universe, approximately if an epsilon is given.
+                if (values.length == 1)
+                    displaySortedCentersOfUniverse(value);
+                else
+                    displaySortedCentersOfUniverse(value, Double.parseDouble(values[1]));
             }
 
             // Catching any exception, indicating it is an invalid input.
             catch (Exception e)
             {
-                System.err.println("Invalid Input");
-                // System.err.println("\t" + e.getMessage());
+                err.println("Invalid Input");
+                // err.println("\t" + e.getMessage());
             }
         }
 
         // if the command is 'e'...
-        if (command.equals("e"))
+        else if (command.equals("e"))
         {
             // We strip any trailing whitespace.
             information = information.stripTrailing();
@@ -633,7 +781,7 @@ public class KevinBaconGame
             if (information == null || information.length() <= 0)
             {
                 // It is an invalid input.
-                System.err.println("Invalid Input");
+                err.println("Invalid Input");
                 return true;
             }
 
@@ -650,13 +798,13 @@ public class KevinBaconGame
             // Catching any exception, indicating it is an invalid input.
             catch (Exception e)
             {
-                System.err.println("Invalid Input");
-                // System.err.println("\t" + e.getMessage());
+                err.println("Invalid Input");
+                // err.println("\t" + e.getMessage());
             }
         }
 
         // if the command is 'l'...
-        if (command.equals("l"))
+        else if (command.equals("l"))
         {
             // We strip any trailing whitespace.
             information = information.stripTrailing();
@@ -665,7 +813,7 @@ public class KevinBaconGame
             if (information == null || information.length() <= 0)
             {
                 // It is an invalid input.
-                System.err.println("Invalid Input");
+                err.println("Invalid Input");
                 return true;
             }
 
@@ -682,11 +830,17 @@ public class KevinBaconGame
             // Catching any exception, indicating it is an invalid input.
             catch (Exception e)
             {
-                System.err.println("Invalid Input");
-                // System.err.println("\t" + e.getMessage());
+                err.println("Invalid Input");
+                // err.println("\t" + e.getMessage());
             }
         }
 
+        // Any other command is invalid (and ignored).
+        else
+        {
+            timedCommand = "invalid";
+        }
+
         // Otherwise, simply return true so that the game continues.
         return true;
     }
@@ -699,11 +853,11 @@ public class KevinBaconGame
     {
         // Initializing the command line.
         initializeCommandLine();
-        System.out.println();
+        out.println();
 
         // Reading input from the scanner.
-        System.out.println("Kevin Bacon game >");
-        String input = scanner.nextLine();
+        out.println("Kevin Bacon game >");
+        String input = nextLine();
 
         // Making sure 'q' was not pressed.
         boolean continueGame = acceptInput(input);
@@ -711,29 +865,156 @@ public class KevinBaconGame
         while (continueGame)
         {
             // Continuously reading in input and appropriately responding.
-            System.out.println();
-            System.out.println(node + " game >");
-            input = scanner.nextLine();
+            out.println();
+            out.println(node + " game >");
+            input = nextLine();
 
             continueGame = acceptInput(input);
         }
     }
 
+    /**
+     * The next line from the scanner, or "q" once there are no more (e.g. when a client disconnects).
+     */
+    private String nextLine()
+    {
+        return scanner.hasNextLine() ? scanner.nextLine() : "q";
+    }
+
+    /**
+     * Print List
+     * Prints the list in the same form as its toString() ([a, b, c]), one element at a time rather than building the
+     * whole string first.
+     */
+    private void printList(List<?> list)
+    {
+        out.print('[');
+        for (int i = 0; i < list.size(); i += 1)
+        {
+            if (i > 0) out.print(", ");
+            out.print(list.get(i));
+        }
+        out.println(']');
+    }
+
+    /**
+     * Run Batch
+     * Runs the commands from the reader (one per line, until q or the end) without prompts, writing their results to
+     * the output in order. Commands between one u and the next all have the same center, so they are read in blocks
+     * that end at a u (or after BATCH_BLOCK commands), and the commands in a block run in parallel, in sessions with the
+     * block's center (sharing its tree, so there is one BFS per center). The output of each chunk of commands is
+     * collected separately and then written out in order through a buffer, a block at a time.
+     */
+    public void runBatch(BufferedReader commands, OutputStream output) throws IOException
+    {
+        BufferedOutputStream buffered = new BufferedOutputStream(output, 1 << 16);
+        PrintStream batchOut = new PrintStream(buffered, false, Charset.defaultCharset());
+        KevinBaconGame batch = new KevinBaconGame(this, null, batchOut); // Holds the center between blocks.
+
+        List<String> block = new ArrayList<String>();
+
+        while (true)
+        {
+            // Reading commands up to the next u or q (or the end), at most BATCH_BLOCK at a time.
+            block.clear();
+            String boundary = null; // The u or q that ended the block, if any.
+            boolean end = false;
+
+            while (block.size() < BATCH_BLOCK)
+            {
+                String command = commands.readLine();
+                if (command == null)
+                {
+                    end = true;
+                    break;
+                }
+
+                String name = commandOf(command);
+                if (name.equals("u") || name.equals("q"))
+                {
+                    boundary = command;
+                    break;
+                }
+
+                block.add(command);
+            }
+
+            // Running the block in parallel, in chunks of BATCH_CHUNK commands that each write to their own buffer, then
+            // writing the buffers in order.
+            int chunks = (block.size() + BATCH_CHUNK - 1) / BATCH_CHUNK;
+            byte[][] results = new byte[chunks][];
+
+            IntStream.range(0, chunks).parallel().forEach(chunk ->
+            {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                PrintStream chunkOut = new PrintStream(bytes, false, Charset.defaultCharset());
+                KevinBaconGame session = new KevinBaconGame(batch, null, chunkOut);
+
+                for (int i = chunk * BATCH_CHUNK; i < Math.min(block.size(), (chunk + 1) * BATCH_CHUNK); i += 1)
+                    session.acceptInput(block.get(i));
+
+                chunkOut.flush();
+                results[chunk] = bytes.toByteArray();
+            });
+
+            for (byte[] result : results) buffered.write(result);
+
+            // Then changing the center (or stopping), if that is what ended the block.
+            if (boundary != null && !batch.acceptInput(boundary)) break;
+            if (end) break;
+        }
+
+        batchOut.flush();
+    }
+
     /**
      * Main Method
      */
-    public static void main(String[] args)
+    public static void main(String[] args) throws IOException
     {
         // Creating a new Scanner based on System.in.
         Scanner scanner = new Scanner(System.in);
 
+        // Using the bipartite graph if it is asked for on the command line, and running a batch of commands from a file
+        // (writing the results to another file, or to the screen) if one is given.
+        List<String> options = Arrays.asList(args);
+        boolean bipartite = options.contains("--bipartite");
+        int batch = options.indexOf("--batch");
+
+        // The file of commands must follow --batch (checked before the graph is loaded).
+        if (batch >= 0 && (batch + 1 == args.length || args[batch + 1].startsWith("--")))
+        {
+            System.err.println("Usage: java KevinBaconGame [--bipartite] [--batch <commands> [<results>]]");
+            System.exit(1);
+        }
+
         // The file names for the text files.
         String actorMapFile = "PS4/actors.txt";
         String movieMapFile = "PS4/movies.txt";
         String connectionsFile = "PS4/movie-actors.txt";
 
         // Initializing a new KevinBaconGame and running it.
-        KevinBaconGame game = new KevinBaconGame("Kevin Bacon", scanner, actorMapFile, movieMapFile, connectionsFile);
-        game.run();
+        KevinBaconGame game = new KevinBaconGame("Kevin Bacon", scanner, actorMapFile, movieMapFile, connectionsFile, bipartite);
+
+        if (batch < 0)
+        {
+            game.run();
+            return;
+        }
+
+        try (BufferedReader commands = new BufferedReader(new FileReader(args[batch + 1]), 1 << 16))
+        {
+            if (batch + 2 < args.length && !args[batch + 2].startsWith("--"))
+            {
+                try (OutputStream output = new FileOutputStream(args[batch + 2]))
+                {
+                    game.runBatch(commands, output);
+                }
+            }
+            else
+            {
+                game.runBatch(commands, System.out);
+            }
+        }
     }
 }
@@ -0,0 +1,138 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Kevin Bacon Server
+ * Serves the Kevin Bacon game to any number of clients at once over a local socket, from a single loaded graph. Each
+ * client that connects gets its own session (see the KevinBaconGame session constructor), with its own center of the
+ * universe, and plays it just as on the command line: the same commands, one per line, and the same output, ending when
+ * the client sends q or disconnects. The graph, the indexes and the cache of trees are shared by every session.
+ *
+ * Each session runs on its own thread: a virtual thread if the JVM has them (Java 21 and later), or otherwise a
+ * thread from a pool that grows and shrinks with the number of sessions. Commands that do a lot of work (like c) split
+ * it across cores themselves, so throughput grows with the number of cores rather than the number of processes.
+ *
+ * Usage: java KevinBaconServer [--bipartite] [<port>] (e.g. nc localhost 4444 to play)
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class KevinBaconServer
+{
+    public static final int DEFAULT_PORT = 4444;
+
+    private KevinBaconGame game; // The loaded game, which every session shares.
+    private ServerSocket serverSocket;
+    private ExecutorService sessions; // Runs the sessions, one thread each.
+
+    /**
+     * Constructor - Listening on the port (on the loopback address only), or on any free port if it is 0.
+     */
+    public KevinBaconServer(KevinBaconGame game, int port) throws IOException
+    {
+        this.game = game;
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        this.sessions = newSessionExecutor();
+    }
+
+    /**
+     * The port the server is listening on.
+     */
+    public int getPort()
+    {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Serve
+     * Accepts clients until the server is closed, starting a session for each.
+     */
+    public void serve()
+    {
+        while (!serverSocket.isClosed())
+        {
+            try
+            {
+                Socket socket = serverSocket.accept();
+                sessions.execute(() -> session(socket));
+            }
+
+            // Accepting fails once the server is closed, which ends the loop.
+            catch (IOException e)
+            {
+                if (!serverSocket.isClosed()) System.err.println("Error: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Close
+     * Stops accepting clients (sessions already started carry on until their clients are done).
+     */
+    public void close() throws IOException
+    {
+        serverSocket.close();
+        sessions.shutdown();
+    }
+
+    /**
+     * Session
+     * Plays the game with one client, until it quits or disconnects.
+     */
+    private void session(Socket socket)
+    {
+        try (socket;
+             Scanner in = new Scanner(socket.getInputStream(), Charset.defaultCharset());
+             PrintStream out = new PrintStream(socket.getOutputStream(), true, Charset.defaultCharset()))
+        {
+            new KevinBaconGame(game, in, out).run();
+        }
+
+        catch (IOException e)
+        {
+            System.err.println("Session ended: " + e.getMessage());
+        }
+    }
+
+    /**
+     * An executor that starts a virtual thread for each session if the JVM has them (Java 21 and later), or otherwise
+     * a cached thread pool.
+     */
+    private static ExecutorService newSessionExecutor()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+
+        catch (ReflectiveOperationException e)
+        {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Main Method
+     */
+    public static void main(String[] args) throws IOException
+    {
+        // Using the bipartite graph if it is asked for, and the given port (if any).
+        boolean bipartite = args.length > 0 && args[0].equals("--bipartite");
+        int port = args.length > (bipartite ? 1 : 0) ? Integer.parseInt(args[args.length - 1]) : DEFAULT_PORT;
+
+        // Loading the game once, for every session to share.
+        KevinBaconGame game = new KevinBaconGame("Kevin Bacon", null, "PS4/actors.txt", "PS4/movies.txt",
+                "PS4/movie-actors.txt", bipartite);
+
+        KevinBaconServer server = new KevinBaconServer(game, port);
+        System.out.println("Serving the Kevin Bacon game on port " + server.getPort());
+        server.serve();
+    }
+}
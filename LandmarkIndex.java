@@ -0,0 +1,306 @@
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Landmark Index
+ * Estimates the separation between any two vertices in O(k) time, from the separations of every vertex to k
+ * landmarks that are found by BFS ahead of time. For a landmark L, the triangle inequality gives
+ *
+ *     |d(s, L) - d(t, L)|  <=  d(s, t)  <=  d(s, L) + d(L, t)
+ *
+ * so the best of these over all the landmarks bound the separation from below and above. The landmarks are the
+ * vertices with the highest degree (from GraphLibrary.verticesByInDegree()), skipping any next to a landmark already
+ * picked, so that they are spread over the graph; high-degree vertices lie on many shortest paths, so the upper bound is
+ * often exact. When the bounds disagree, bounds(s, t, maxEdges) narrows them with a bidirectional BFS that only looks for
+ * a path shorter than the upper bound, and gives up after scanning maxEdges edges.
+ *
+ * The separations are kept as one byte per vertex per landmark, with each vertex's k bytes next to each other, so a
+ * query reads two short runs of memory. The graph must be undirected (every edge has a reverse, as in the co-star and
+ * bipartite graphs), since the BFS goes out from the landmarks but the bounds need the separations in both directions.
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class LandmarkIndex<V, E>
+{
+    public static final int INFINITE = Integer.MAX_VALUE; // The bound when there is no path (or none is known).
+
+    private static final int UNREACHED = 255; // Stored for a vertex the landmark cannot reach.
+    private static final int FAR = 254; // Stored for a vertex at this separation or more (which gives no bound).
+
+    private final IndexedGraph<V, E> graph;
+    private final int k; // How many landmarks there are.
+    private final int[] landmarks; // The dense IDs of the landmarks.
+    private final byte[] separations; // Separation of vertex v from landmark i: separations[v * k + i] (unsigned).
+    private final Queue<Workspace> workspaces = new ConcurrentLinkedQueue<Workspace>(); // Arrays for search(), kept between queries.
+
+    /**
+     * Constructor - Picking the landmarks and running a BFS from each.
+     *
+     * @param graph The (undirected) graph to index.
+     * @param k How many landmarks to pick (fewer if the graph is smaller).
+     */
+    public LandmarkIndex(IndexedGraph<V, E> graph, int k)
+    {
+        int n = graph.numVertices();
+        if ((long) n * k > Integer.MAX_VALUE) throw new IllegalArgumentException("Too many landmarks for the graph: " + k);
+
+        this.graph = graph;
+        this.k = Math.min(k, n);
+        this.landmarks = new int[this.k];
+        this.separations = new byte[n * this.k];
+
+        // Picking the vertices with the highest degree, skipping any within one step of a landmark already picked (or
+        // taking them after all, if there are not enough others).
+        List<V> candidates = GraphLibrary.verticesByInDegree(graph);
+        boolean[] picked = new boolean[n];
+        int count = 0;
+
+        for (int pass = 0; pass < 2 && count < this.k; pass += 1)
+        {
+            for (int i = 0; i < candidates.size() && count < this.k; i += 1)
+            {
+                int v = graph.indexOf(candidates.get(i));
+                if (picked[v] || (pass == 0 && nearLandmark(v, count))) continue;
+
+                picked[v] = true;
+                landmarks[count] = v;
+                addLandmark(count);
+                count += 1;
+            }
+        }
+    }
+
+    /**
+     * The landmarks, in the order they were picked.
+     */
+    public List<V> landmarks()
+    {
+        return Arrays.stream(landmarks).mapToObj(graph::vertex).toList();
+    }
+
+    /**
+     * How much memory the separations take up, in bytes.
+     */
+    public long sizeInBytes()
+    {
+        return separations.length;
+    }
+
+    /**
+     * Bounds
+     * The lower and upper bounds { lower, upper } on the separation between s and t, from the landmarks alone (both
+     * INFINITE if they are known not to be connected, and the upper bound INFINITE if no landmark reaches both).
+     */
+    public int[] bounds(V s, V t)
+    {
+        int u = id(s), v = id(t);
+        if (u == v) return new int[] { 0, 0 };
+
+        int lower = 1, upper = INFINITE;
+        for (int i = 0; i < k; i += 1)
+        {
+            int a = separations[u * k + i] & 0xFF, b = separations[v * k + i] & 0xFF;
+
+            // A landmark that reaches one but not the other means that they are not connected.
+            if ((a == UNREACHED) != (b == UNREACHED)) return new int[] { INFINITE, INFINITE };
+            if (a >= FAR || b >= FAR) continue;
+
+            lower = Math.max(lower, Math.abs(a - b));
+            upper = Math.min(upper, a + b);
+        }
+
+        return new int[] { lower, upper };
+    }
+
+    /**
+     * Bounds
+     * The bounds from the landmarks, narrowed (if they disagree) by a bidirectional BFS for a path shorter than the upper
+     * bound, which gives up after scanning maxEdges edges. The bounds are equal if the separation is known exactly.
+     */
+    public int[] bounds(V s, V t, int maxEdges)
+    {
+        int[] bounds = bounds(s, t);
+        if (bounds[0] == bounds[1]) return bounds;
+
+        return search(id(s), id(t), bounds[0], bounds[1], maxEdges);
+    }
+
+    /**
+     * Search
+     * Helper function for bounds(), which expands whichever side of a bidirectional BFS has the smaller frontier, a
+     * level at a time, until the two sides meet, one runs out of vertices, no path shorter than the upper bound is
+     * left to find, or the edge budget runs out. Levels are counted in hops (so intermediate vertices are searched
+     * through, and the result is divided by hops).
+     */
+    private int[] search(int s, int t, int lower, int upper, int maxEdges)
+    {
+        int[] offsets = graph.outOffsets(), targets = graph.outTargets();
+        int hops = graph.hops();
+        long known = upper == INFINITE ? Long.MAX_VALUE : (long) upper * hops; // The length (in levels) of a known path.
+
+        // Taking arrays left by an earlier search (or making new ones, if every set is in use by another thread).
+        Workspace space = workspaces.poll();
+        if (space == null) space = new Workspace(offsets.length - 1);
+
+        // The depth of each vertex each side has reached (-1 if not), and the vertices each side has reached in order,
+        // of which those from head to tail are its frontier.
+        int[] forward = space.forward, backward = space.backward;
+        int[] forwardQueue = space.forwardQueue, backwardQueue = space.backwardQueue;
+        forward[s] = 0;
+        backward[t] = 0;
+        forwardQueue[0] = s;
+        backwardQueue[0] = t;
+        int forwardHead = 0, forwardTail = 1, backwardHead = 0, backwardTail = 1;
+        int forwardDepth = 0, backwardDepth = 0;
+
+        long best = known;
+        long scanned = 0;
+        boolean gaveUp = false, disconnected = false;
+
+        while (best == known && forwardDepth + backwardDepth + 1 < known)
+        {
+            // The whole of one side's component has been searched without meeting the other side.
+            if (forwardHead == forwardTail || backwardHead == backwardTail)
+            {
+                disconnected = true;
+                break;
+            }
+
+            boolean isForward = forwardTail - forwardHead <= backwardTail - backwardHead;
+            int[] depths = isForward ? forward : backward, otherDepths = isForward ? backward : forward;
+            int[] queue = isForward ? forwardQueue : backwardQueue;
+            int depth = isForward ? forwardDepth : backwardDepth;
+            int head = isForward ? forwardHead : backwardHead, tail = isForward ? forwardTail : backwardTail;
+
+            for (int levelEnd = tail; head < levelEnd && !gaveUp; head += 1)
+            {
+                int u = queue[head];
+                scanned += offsets[u + 1] - offsets[u];
+                gaveUp = scanned > maxEdges;
+
+                for (int edge = offsets[u]; edge < offsets[u + 1] && !gaveUp; edge += 1)
+                {
+                    int w = targets[edge];
+
+                    // If the other side has reached the neighbor, this is a path (keeping the shortest in this level).
+                    if (otherDepths[w] >= 0) best = Math.min(best, depth + 1 + otherDepths[w]);
+
+                    if (depths[w] < 0)
+                    {
+                        depths[w] = depth + 1;
+                        queue[tail++] = w;
+                    }
+                }
+            }
+
+            if (isForward)
+            {
+                forwardHead = head;
+                forwardTail = tail;
+            }
+            else
+            {
+                backwardHead = head;
+                backwardTail = tail;
+            }
+
+            if (gaveUp) break;
+
+            if (isForward) forwardDepth += 1;
+            else backwardDepth += 1;
+        }
+
+        // Resetting the depths of the vertices reached, and leaving the arrays for the next search.
+        for (int i = 0; i < forwardTail; i += 1)
+            forward[forwardQueue[i]] = -1;
+        for (int i = 0; i < backwardTail; i += 1)
+            backward[backwardQueue[i]] = -1;
+        workspaces.offer(space);
+
+        Metrics.recordTraversal("landmarkSearch", forwardTail + backwardTail, scanned);
+
+        // The first paths found are the shortest (since no shorter path was found in the levels before), so if the
+        // sides have met, the separation is known, even if the budget ran out before the level was finished.
+        if (best < known)
+        {
+            int separation = (int) (best / hops);
+            return new int[] { separation, separation };
+        }
+
+        // Giving up, with the lower bound that the levels searched so far prove.
+        if (gaveUp)
+        {
+            long levels = forwardDepth + backwardDepth + 1;
+            return new int[] { Math.max(lower, (int) ((levels + hops - 1) / hops)), upper };
+        }
+
+        if (disconnected) return new int[] { INFINITE, INFINITE };
+
+        // There is no path shorter than the one through the landmark.
+        return new int[] { upper, upper };
+    }
+
+    /**
+     * Runs a BFS from the i-th landmark, storing the separation of every vertex from it.
+     */
+    private void addLandmark(int i)
+    {
+        DistanceTree<V> tree = GraphLibrary.distanceTree(graph, graph.vertex(landmarks[i]));
+
+        for (int v = 0; v < graph.numVertices(); v += 1)
+        {
+            int separation = tree.separationById(v);
+            separations[v * k + i] = (byte) (separation < 0 ? UNREACHED : Math.min(separation, FAR));
+        }
+    }
+
+    /**
+     * Whether the vertex is within one step of any of the first count landmarks.
+     */
+    private boolean nearLandmark(int v, int count)
+    {
+        for (int i = 0; i < count; i += 1)
+        {
+            if ((separations[v * k + i] & 0xFF) <= 1) return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * The dense ID of the vertex.
+     */
+    private int id(V v)
+    {
+        int id = graph.indexOf(v);
+        if (id < 0) throw new IllegalArgumentException("No such vertex: " + v);
+        return id;
+    }
+
+    /**
+     * Workspace
+     * Helper class for the search() method: the depths and queues of both sides of a search, sized to the graph. The
+     * depths are all -1 between searches (each search resets those it set), so a search only touches the vertices it
+     * reaches.
+     */
+    private static class Workspace
+    {
+        private final int[] forward, backward; // The depth each side has reached each vertex at (-1 if not).
+        private final int[] forwardQueue, backwardQueue; // The vertices each side has reached, in order.
+
+        Workspace(int total)
+        {
+            forward = new int[total];
+            backward = new int[total];
+            Arrays.fill(forward, -1);
+            Arrays.fill(backward, -1);
+            forwardQueue = new int[total];
+            backwardQueue = new int[total];
+        }
+    }
+}
@@ -0,0 +1,237 @@
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Metrics
+ * Records how long each command and load phase takes, and how many vertices and edges each traversal touches, in
+ * histograms that any number of threads can update at once without locking. The histograms are log-linear: each power
+ * of two is split into 8 buckets, so any percentile is known to within 1/16 of its value (plus or minus), in a fixed
+ * 512 counters whatever the range of values. Everything is kept in one shared instance, shown by the game's stats
+ * command and (once register() has been called) through JMX as a MetricsMBean.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class Metrics implements MetricsMBean
+{
+    private static final Metrics instance = new Metrics();
+
+    private final Map<String, Histogram> latencies = new ConcurrentHashMap<String, Histogram>(); // In nanoseconds.
+    private final Map<String, Histogram[]> traversals = new ConcurrentHashMap<String, Histogram[]>(); // { vertices, edges }
+
+    /**
+     * The shared instance.
+     */
+    public static Metrics get()
+    {
+        return instance;
+    }
+
+    /**
+     * Records how long (in nanoseconds) the operation took.
+     */
+    public static void recordLatency(String name, long nanos)
+    {
+        instance.latencies.computeIfAbsent(name, key -> new Histogram()).record(nanos);
+    }
+
+    /**
+     * Records how many vertices a traversal reached and how many edges it scanned.
+     */
+    public static void recordTraversal(String name, long vertices, long edges)
+    {
+        Histogram[] histograms = instance.traversals.computeIfAbsent(name, key -> new Histogram[] { new Histogram(), new Histogram() });
+        histograms[0].record(vertices);
+        histograms[1].record(edges);
+    }
+
+    /**
+     * Registers the shared instance with the platform MBean server (if it is not already registered).
+     */
+    public static synchronized void register()
+    {
+        try
+        {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("KevinBaconGame:type=Metrics");
+            if (!server.isRegistered(name)) server.registerMBean(instance, name);
+        }
+
+        // Without JMX, the metrics are still there for the stats command.
+        catch (JMException | SecurityException e)
+        {
+            System.err.println("Could not register metrics: " + e.getMessage());
+        }
+    }
+
+    public String[] getLatencyNames()
+    {
+        return new TreeMap<String, Histogram>(latencies).keySet().toArray(new String[0]);
+    }
+
+    public String[] getTraversalNames()
+    {
+        return new TreeMap<String, Histogram[]>(traversals).keySet().toArray(new String[0]);
+    }
+
+    public String getReport()
+    {
+        StringBuilder report = new StringBuilder();
+
+        report.append(String.format(Locale.ROOT, "%-28s %9s %10s %10s %10s %10s %10s%n",
+                "Latency (ms)", "count", "mean", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, Histogram> entry : new TreeMap<String, Histogram>(latencies).entrySet())
+        {
+            Histogram h = entry.getValue();
+            report.append(String.format(Locale.ROOT, "%-28s %9d %10.3f %10.3f %10.3f %10.3f %10.3f%n", entry.getKey(),
+                    h.count(), h.mean() / 1e6, h.percentile(50) / 1e6, h.percentile(90) / 1e6, h.percentile(99) / 1e6,
+                    h.max() / 1e6));
+        }
+
+        report.append(String.format(Locale.ROOT, "%-28s %9s %10s %10s %10s %10s %10s%n",
+                "Traversals", "count", "vertices", "p99", "edges", "p99", "max edges"));
+        for (Map.Entry<String, Histogram[]> entry : new TreeMap<String, Histogram[]>(traversals).entrySet())
+        {
+            Histogram vertices = entry.getValue()[0], edges = entry.getValue()[1];
+            report.append(String.format(Locale.ROOT, "%-28s %9d %10.0f %10d %10.0f %10d %10d%n", entry.getKey(),
+                    vertices.count(), vertices.mean(), vertices.percentile(99), edges.mean(), edges.percentile(99),
+                    edges.max()));
+        }
+
+        return report.toString();
+    }
+
+    public long latencyCount(String name)
+    {
+        Histogram h = latencies.get(name);
+        return h == null ? 0 : h.count();
+    }
+
+    public double latencyPercentileMillis(String name, double percentile)
+    {
+        Histogram h = latencies.get(name);
+        return h == null ? Double.NaN : h.percentile(percentile) / 1e6;
+    }
+
+    public double latencyMaxMillis(String name)
+    {
+        Histogram h = latencies.get(name);
+        return h == null ? Double.NaN : h.max() / 1e6;
+    }
+
+    public long traversalCount(String name)
+    {
+        Histogram[] h = traversals.get(name);
+        return h == null ? 0 : h[0].count();
+    }
+
+    public double meanVertices(String name)
+    {
+        Histogram[] h = traversals.get(name);
+        return h == null ? Double.NaN : h[0].mean();
+    }
+
+    public double meanEdges(String name)
+    {
+        Histogram[] h = traversals.get(name);
+        return h == null ? Double.NaN : h[1].mean();
+    }
+
+    public void reset()
+    {
+        latencies.clear();
+        traversals.clear();
+    }
+
+    /**
+     * Histogram
+     * A log-linear histogram of non-negative values: values below 8 each have their own bucket, and each power of two
+     * above that is split into 8 equal buckets. Updates are atomic, and lock-free.
+     */
+    static class Histogram
+    {
+        private static final int SUB_BITS = 3, SUB_BUCKETS = 1 << SUB_BITS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(64 * SUB_BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+        void record(long value)
+        {
+            value = Math.max(0, value);
+            buckets.incrementAndGet(bucket(value));
+            count.increment();
+            sum.add(value);
+            max.accumulate(value);
+        }
+
+        long count()
+        {
+            return count.sum();
+        }
+
+        double mean()
+        {
+            long n = count.sum();
+            return n == 0 ? 0 : (double) sum.sum() / n;
+        }
+
+        long max()
+        {
+            return max.get();
+        }
+
+        /**
+         * The given percentile (between 0 and 100), as the middle of the bucket it falls in.
+         */
+        long percentile(double percentile)
+        {
+            long n = count.sum();
+            if (n == 0) return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * n));
+            long seen = 0;
+            for (int i = 0; i < buckets.length(); i += 1)
+            {
+                seen += buckets.get(i);
+                if (seen >= rank) return Math.min(max.get(), (lowest(i) + lowest(i + 1) - 1) / 2);
+            }
+
+            return max.get();
+        }
+
+        /**
+         * The bucket the value falls in.
+         */
+        static int bucket(long value)
+        {
+            if (value < SUB_BUCKETS) return (int) value;
+
+            int exponent = 63 - Long.numberOfLeadingZeros(value); // At least SUB_BITS.
+            int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * The lowest value in the bucket.
+         */
+        static long lowest(int bucket)
+        {
+            if (bucket < SUB_BUCKETS) return bucket;
+
+            int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+            long sub = bucket % SUB_BUCKETS;
+            return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Metrics MBean
+ * The JMX view of Metrics (registered as KevinBaconGame:type=Metrics), so that latencies and traversal sizes can be
+ * watched from JConsole or any other JMX client while the game or server is running.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public interface MetricsMBean
+{
+    /**
+     * The names of the timed operations (commands, load phases and so on).
+     */
+    public String[] getLatencyNames();
+
+    /**
+     * The names of the counted traversals.
+     */
+    public String[] getTraversalNames();
+
+    /**
+     * A table of every latency and traversal, as printed by the stats command.
+     */
+    public String getReport();
+
+    /**
+     * How many times the operation has been timed.
+     */
+    public long latencyCount(String name);
+
+    /**
+     * The given percentile (between 0 and 100) of the operation's latency, in milliseconds.
+     */
+    public double latencyPercentileMillis(String name, double percentile);
+
+    /**
+     * The longest the operation has taken, in milliseconds.
+     */
+    public double latencyMaxMillis(String name);
+
+    /**
+     * How many traversals of this kind there have been.
+     */
+    public long traversalCount(String name);
+
+    /**
+     * The mean number of vertices reached per traversal.
+     */
+    public double meanVertices(String name);
+
+    /**
+     * The mean number of edges scanned per traversal.
+     */
+    public double meanEdges(String name);
+
+    /**
+     * Forgets everything recorded so far.
+     */
+    public void reset();
+}
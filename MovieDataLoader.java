@@ -0,0 +1,338 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Movie Data Loader
+ * Reads the pipe-delimited input files of the Kevin Bacon game (ID|name for actors and movies, movieID|actorID for the
+ * connections) without going through String.split() and Integer.parseInt() for every line.
+ *
+ * Each file is memory-mapped and split into chunks on line boundaries, and the chunks are parsed in parallel by a
+ * byte-level tokenizer. The results are then put into the maps one chunk at a time, in file order, so the maps come
+ * out exactly as if the file had been read line by line. As before, reading stops at the first empty line, a "\r"
+ * before the "\n" is ignored, and names are decoded with the default charset (as FileReader does), which must be
+ * ASCII-compatible (e.g. UTF-8) for the | and line breaks to be found byte by byte.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class MovieDataLoader
+{
+    private static final int CHUNK_SIZE = 1 << 22; // Target chunk size in bytes (chunks are extended to the end of a line).
+    private static final int WINDOW_SIZE = 1 << 12; // Bytes read at a time when looking for the end of a line.
+
+    /**
+     * Read Names
+     * Reads a file of ID|name lines (actors or movies) into a map from ID to name.
+     *
+     * @param file The file to read.
+     */
+    public static Map<Integer, String> readNames(String file) throws IOException
+    {
+        Map<Integer, String> names = new HashMap<>();
+
+        for (Chunk chunk : parse(file, true))
+        {
+            for (int i = 0; i < chunk.count; i += 1)
+                names.put(chunk.keys[i], chunk.names[i]);
+        }
+
+        return names;
+    }
+
+    /**
+     * Read Connections
+     * Reads a file of movieID|actorID lines into a map from movie ID to the IDs of the actors in it (in file order).
+     *
+     * @param file The file to read.
+     */
+    public static Map<Integer, List<Integer>> readConnections(String file) throws IOException
+    {
+        Map<Integer, List<Integer>> connections = new HashMap<>();
+
+        for (Chunk chunk : parse(file, false))
+        {
+            for (int i = 0; i < chunk.count; i += 1)
+            {
+                List<Integer> actors = connections.get(chunk.keys[i]);
+                if (actors == null)
+                {
+                    actors = new ArrayList<Integer>();
+                    connections.put(chunk.keys[i], actors);
+                }
+
+                actors.add(chunk.values[i]);
+            }
+        }
+
+        return connections;
+    }
+
+    /**
+     * Parse
+     * Splits the file into chunks, parses them in parallel, and returns the chunks up to (and including) the one with the
+     * first empty line.
+     *
+     * @param file The file to parse.
+     * @param named Whether the second field is a name (otherwise it is an ID).
+     */
+    private static List<Chunk> parse(String file, boolean named) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(Paths.get(file), StandardOpenOption.READ))
+        {
+            // Finding the chunk boundaries, each just after a line break.
+            long size = channel.size();
+            List<Chunk> chunks = new ArrayList<Chunk>();
+
+            long start = 0;
+            while (start < size)
+            {
+                long end = lineEnd(channel, Math.min(start + CHUNK_SIZE, size), size);
+                chunks.add(new Chunk(start, end));
+                start = end;
+            }
+
+            if (!chunks.isEmpty())
+                ForkJoinPool.commonPool().invoke(new ParseTask(channel, named, chunks, 0, chunks.size()));
+
+            // Keeping the chunks up to the first empty line, and reporting the first malformed line before it.
+            List<Chunk> parsed = new ArrayList<Chunk>();
+            for (Chunk chunk : chunks)
+            {
+                if (chunk.failure != null) throw new IOException(file + ": " + chunk.failure.getMessage(), chunk.failure);
+                parsed.add(chunk);
+                if (chunk.stopped) break;
+            }
+
+            return parsed;
+        }
+    }
+
+    /**
+     * Line End
+     * Finds the position just after the first line break at or after the given position (or the end of the file).
+     */
+    private static long lineEnd(FileChannel channel, long position, long size) throws IOException
+    {
+        ByteBuffer window = ByteBuffer.allocate(WINDOW_SIZE);
+
+        while (position < size)
+        {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read <= 0) break;
+
+            for (int i = 0; i < read; i += 1)
+            {
+                if (window.get(i) == '\n') return position + i + 1;
+            }
+
+            position += read;
+        }
+
+        return size;
+    }
+
+    /**
+     * Helper class for the parse() method, holding the byte range of a chunk and the lines parsed from it.
+     */
+    private static class Chunk
+    {
+        private final long start, end; // Byte range of the chunk in the file.
+
+        private int count; // How many lines were parsed.
+        private int[] keys, values; // First field, and second field (if it is an ID), of each line.
+        private String[] names; // Second field of each line (if it is a name).
+        private boolean stopped; // Whether the chunk has an empty line (and so is the last one read).
+        private IOException failure; // The first malformed line in the chunk, if any.
+
+        Chunk(long start, long end)
+        {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Helper class for the parse() method, which splits the list of chunks in half until there is only one to parse.
+     */
+    private static class ParseTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final boolean named;
+        private final List<Chunk> chunks;
+        private final int from, to;
+
+        ParseTask(FileChannel channel, boolean named, List<Chunk> chunks, int from, int to)
+        {
+            this.channel = channel;
+            this.named = named;
+            this.chunks = chunks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (to - from > 1)
+            {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask(channel, named, chunks, from, middle),
+                        new ParseTask(channel, named, chunks, middle, to));
+                return;
+            }
+
+            Chunk chunk = chunks.get(from);
+            try
+            {
+                parseChunk(channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.end - chunk.start), chunk, named);
+            }
+            catch (IOException e)
+            {
+                chunk.failure = e;
+            }
+        }
+    }
+
+    /**
+     * Parse Chunk
+     * Tokenizes the lines of a chunk on the | symbol, stopping at the first empty or malformed line.
+     *
+     * @param buffer The chunk, mapped into memory.
+     * @param chunk Where to store the parsed lines.
+     * @param named Whether the second field is a name (otherwise it is an ID).
+     */
+    private static void parseChunk(MappedByteBuffer buffer, Chunk chunk, boolean named)
+    {
+        int limit = buffer.limit();
+
+        // A rough guess at the number of lines, grown as needed.
+        int capacity = Math.max(16, limit / 16);
+        chunk.keys = new int[capacity];
+        if (named) chunk.names = new String[capacity];
+        else chunk.values = new int[capacity];
+
+        Charset charset = Charset.defaultCharset();
+        byte[] scratch = new byte[64]; // For copying out names to decode.
+        int lineStart = 0;
+
+        while (lineStart < limit)
+        {
+            // Finding the end of the line (not including the line break), and the first | in it.
+            int lineEnd = lineStart, bar = -1;
+            byte b;
+            while (lineEnd < limit && (b = buffer.get(lineEnd)) != '\n')
+            {
+                if (b == '|' && bar < 0) bar = lineEnd;
+                lineEnd += 1;
+            }
+
+            int next = lineEnd + 1;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') lineEnd -= 1;
+
+            // Stopping at the first empty line.
+            if (lineEnd == lineStart)
+            {
+                chunk.stopped = true;
+                return;
+            }
+
+            // The second field runs up to the next | (any later fields are ignored), and must not be empty.
+            int fieldEnd = bar + 1;
+            while (bar >= 0 && fieldEnd < lineEnd && buffer.get(fieldEnd) != '|') fieldEnd += 1;
+
+            if (bar < 0 || fieldEnd == bar + 1)
+            {
+                chunk.failure = malformed(chunk, lineStart);
+                return;
+            }
+
+            if (chunk.count == chunk.keys.length)
+            {
+                capacity = chunk.keys.length * 2;
+                chunk.keys = Arrays.copyOf(chunk.keys, capacity);
+                if (named) chunk.names = Arrays.copyOf(chunk.names, capacity);
+                else chunk.values = Arrays.copyOf(chunk.values, capacity);
+            }
+
+            try
+            {
+                chunk.keys[chunk.count] = parseInt(buffer, lineStart, bar);
+
+                if (named)
+                {
+                    int length = fieldEnd - bar - 1;
+                    if (length > scratch.length) scratch = new byte[Math.max(length, scratch.length * 2)];
+                    buffer.get(bar + 1, scratch, 0, length);
+                    chunk.names[chunk.count] = new String(scratch, 0, length, charset);
+                }
+                else
+                {
+                    chunk.values[chunk.count] = parseInt(buffer, bar + 1, fieldEnd);
+                }
+            }
+            catch (NumberFormatException e)
+            {
+                chunk.failure = malformed(chunk, lineStart);
+                return;
+            }
+
+            chunk.count += 1;
+            lineStart = next;
+        }
+    }
+
+    /**
+     * Parse Int
+     * Parses the decimal integer in the given byte range, with the same rules as Integer.parseInt().
+     */
+    private static int parseInt(MappedByteBuffer buffer, int from, int to)
+    {
+        boolean negative = false;
+        int i = from;
+
+        if (i < to && (buffer.get(i) == '-' || buffer.get(i) == '+'))
+        {
+            negative = buffer.get(i) == '-';
+            i += 1;
+        }
+
+        if (i == to) throw new NumberFormatException();
+
+        // Accumulating as a negative number, so that Integer.MIN_VALUE can be represented.
+        long value = 0;
+        for (; i < to; i += 1)
+        {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException();
+
+            value = value * 10 - digit;
+            if (value < Integer.MIN_VALUE) throw new NumberFormatException();
+        }
+
+        if (!negative && value == Integer.MIN_VALUE) throw new NumberFormatException();
+        return (int) (negative ? value : -value);
+    }
+
+    /**
+     * Builds the exception for a malformed line, giving its byte offset in the file.
+     */
+    private static IOException malformed(Chunk chunk, int lineStart)
+    {
+        return new IOException("Malformed line at byte " + (chunk.start + lineStart));
+    }
+}
@@ -0,0 +1,137 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Movie Label
+ * The label on an edge of the co-star graph: the IDs of the movies the two actors appeared in together, kept as a
+ * sorted int array rather than a set of titles. Titles are only looked up (in the movie map read from the input files)
+ * when a path is printed.
+ *
+ * Most pairs of co-stars share a single movie, so a label for a single movie holds just that ID, and is interned (every
+ * edge from the same movie shares the same label). Labels are immutable; with() returns a new label with a movie added.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class MovieLabel
+{
+    private static final Map<Integer, MovieLabel> singles = new ConcurrentHashMap<Integer, MovieLabel>(); // Interned single-movie labels.
+
+    private final int movie; // The movie, if there is only one.
+    private final int[] movies; // The sorted movies, if there is more than one (otherwise null).
+
+    private MovieLabel(int movie, int[] movies)
+    {
+        this.movie = movie;
+        this.movies = movies;
+    }
+
+    /**
+     * The (interned) label for a single movie.
+     */
+    public static MovieLabel of(int movie)
+    {
+        return singles.computeIfAbsent(movie, id -> new MovieLabel(id, null));
+    }
+
+    /**
+     * The label for the given movies (which need not be sorted, and may have duplicates), or null if there are none.
+     */
+    public static MovieLabel of(int[] movies)
+    {
+        int[] sorted = Arrays.stream(movies).sorted().distinct().toArray();
+
+        if (sorted.length == 0) return null;
+        if (sorted.length == 1) return of(sorted[0]);
+        return new MovieLabel(sorted[0], sorted);
+    }
+
+    /**
+     * How many movies are in the label.
+     */
+    public int size()
+    {
+        return movies == null ? 1 : movies.length;
+    }
+
+    /**
+     * The i-th movie in the label, in order of ID.
+     */
+    public int movie(int i)
+    {
+        return movies == null ? movie : movies[i];
+    }
+
+    /**
+     * Whether the movie is in the label.
+     */
+    public boolean contains(int movie)
+    {
+        return movies == null ? this.movie == movie : Arrays.binarySearch(movies, movie) >= 0;
+    }
+
+    /**
+     * The label with the movie added (this label, if it is already in it).
+     */
+    public MovieLabel with(int movie)
+    {
+        if (contains(movie)) return this;
+
+        // Inserting the movie in order.
+        int size = size();
+        int[] added = new int[size + 1];
+        int i = 0;
+
+        while (i < size && movie(i) < movie)
+        {
+            added[i] = movie(i);
+            i += 1;
+        }
+
+        added[i] = movie;
+        for (; i < size; i += 1) added[i + 1] = movie(i);
+
+        return new MovieLabel(added[0], added);
+    }
+
+    /**
+     * The titles of the movies in the label, looked up in the given movie map (from movie ID to title).
+     */
+    public List<String> titles(Map<Integer, String> movieMap)
+    {
+        List<String> titles = new ArrayList<String>(size());
+        for (int i = 0; i < size(); i += 1) titles.add(movieMap.get(movie(i)));
+        return titles;
+    }
+
+    public boolean equals(Object other)
+    {
+        if (!(other instanceof MovieLabel)) return false;
+
+        MovieLabel label = (MovieLabel) other;
+        if (label.size() != size()) return false;
+
+        for (int i = 0; i < size(); i += 1)
+        {
+            if (label.movie(i) != movie(i)) return false;
+        }
+
+        return true;
+    }
+
+    public int hashCode()
+    {
+        return movies == null ? 31 + movie : Arrays.hashCode(movies); // 31 + movie is Arrays.hashCode() of { movie }.
+    }
+
+    /**
+     * Returns a string representation of the movie IDs.
+     */
+    public String toString()
+    {
+        return movies == null ? "[" + movie + "]" : Arrays.toString(movies);
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Observable Graph - Wraps a graph, passing every call through to it, and notifying GraphListeners of the changes made
+ * by insert* and remove* (so that caches and indexes built over the graph can be kept up to date).
+ *
+ * Changes should only be made through the ObservableGraph, not through the wrapped graph directly.
+ *
+ * @param <V> The type of vertices.
+ * @param <E> The type of edge labels.
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class ObservableGraph<V, E> implements Graph<V, E>
+{
+    protected Graph<V, E> graph; // The wrapped graph.
+    protected List<GraphListener<V, E>> listeners; // Notified of each change, in the order they were added.
+
+    /**
+     * Constructor
+     *
+     * @param graph The graph to wrap (e.g. an AdjacencyMapGraph).
+     */
+    public ObservableGraph(Graph<V, E> graph)
+    {
+        this.graph = graph;
+        this.listeners = new ArrayList<GraphListener<V, E>>();
+    }
+
+    /**
+     * Adds a listener to be notified of changes from now on.
+     */
+    public void addListener(GraphListener<V, E> listener)
+    {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops notifying the listener of changes.
+     */
+    public void removeListener(GraphListener<V, E> listener)
+    {
+        listeners.remove(listener);
+    }
+
+    public int numVertices()
+    {
+        return graph.numVertices();
+    }
+
+    public int numEdges()
+    {
+        return graph.numEdges();
+    }
+
+    public Iterable<V> vertices()
+    {
+        return graph.vertices();
+    }
+
+    public boolean hasVertex(V v)
+    {
+        return graph.hasVertex(v);
+    }
+
+    public int outDegree(V v)
+    {
+        return graph.outDegree(v);
+    }
+
+    public int inDegree(V v)
+    {
+        return graph.inDegree(v);
+    }
+
+    public Iterable<V> outNeighbors(V v)
+    {
+        return graph.outNeighbors(v);
+    }
+
+    public Iterable<V> inNeighbors(V v)
+    {
+        return graph.inNeighbors(v);
+    }
+
+    public boolean hasEdge(V u, V v)
+    {
+        return graph.hasEdge(u, v);
+    }
+
+    public E getLabel(V u, V v)
+    {
+        return graph.getLabel(u, v);
+    }
+
+    public void insertVertex(V v)
+    {
+        if (graph.hasVertex(v)) return;
+
+        graph.insertVertex(v);
+        for (GraphListener<V, E> listener : listeners) listener.vertexInserted(v);
+    }
+
+    public void insertDirected(V u, V v, E e)
+    {
+        boolean existed = graph.hasEdge(u, v);
+
+        graph.insertDirected(u, v, e);
+        if (!existed) edgeInserted(u, v, e);
+    }
+
+    public void insertUndirected(V u, V v, E e)
+    {
+        boolean existed = graph.hasEdge(u, v), reverseExisted = graph.hasEdge(v, u);
+
+        graph.insertUndirected(u, v, e);
+        if (!existed) edgeInserted(u, v, e);
+        if (!reverseExisted && !u.equals(v)) edgeInserted(v, u, e);
+    }
+
+    public void removeVertex(V v)
+    {
+        if (!graph.hasVertex(v)) return;
+
+        // Noting the edges of the vertex before they are gone.
+        List<V> outNeighbors = new ArrayList<V>(), inNeighbors = new ArrayList<V>();
+        for (V w : graph.outNeighbors(v)) outNeighbors.add(w);
+        for (V u : graph.inNeighbors(v)) inNeighbors.add(u);
+
+        graph.removeVertex(v);
+
+        for (V w : outNeighbors) edgeRemoved(v, w);
+        for (V u : inNeighbors)
+        {
+            if (!u.equals(v)) edgeRemoved(u, v); // A self-loop was already reported as an out-edge.
+        }
+
+        for (GraphListener<V, E> listener : listeners) listener.vertexRemoved(v);
+    }
+
+    public void removeDirected(V u, V v)
+    {
+        if (!graph.hasEdge(u, v)) return;
+
+        graph.removeDirected(u, v);
+        edgeRemoved(u, v);
+    }
+
+    public void removeUndirected(V u, V v)
+    {
+        removeDirected(u, v);
+        removeDirected(v, u);
+    }
+
+    /**
+     * Notifies the listeners of a new edge.
+     */
+    protected void edgeInserted(V u, V v, E e)
+    {
+        for (GraphListener<V, E> listener : listeners) listener.edgeInserted(u, v, e);
+    }
+
+    /**
+     * Notifies the listeners of a removed edge.
+     */
+    protected void edgeRemoved(V u, V v)
+    {
+        for (GraphListener<V, E> listener : listeners) listener.edgeRemoved(u, v);
+    }
+
+    /**
+     * Returns a string representation of the wrapped graph.
+     */
+    public String toString()
+    {
+        return graph.toString();
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Separation Estimates
+ * The average separations estimated by GraphLibrary.approximateAverageSeparations(), along with how they were found and
+ * how far off they may be.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class SeparationEstimates
+{
+    private double[] estimates;
+    private int sampleSize, candidateCount;
+    private double errorBound, confidence;
+
+    /**
+     * Constructor
+     *
+     * @param estimates Estimated average separations indexed by dense ID (NaN for vertices that were not candidates).
+     * @param sampleSize How many pivots the BFS was run from.
+     * @param candidateCount How many candidates there were.
+     * @param errorBound How far any estimate may be from the true value (0 if they are exact).
+     * @param confidence The probability that every estimate is within the error bound.
+     */
+    public SeparationEstimates(double[] estimates, int sampleSize, int candidateCount, double errorBound, double confidence)
+    {
+        this.estimates = estimates;
+        this.sampleSize = sampleSize;
+        this.candidateCount = candidateCount;
+        this.errorBound = errorBound;
+        this.confidence = confidence;
+    }
+
+    /**
+     * Estimated average separations, indexed by dense ID (NaN for vertices that were not candidates).
+     */
+    public double[] estimates()
+    {
+        return estimates;
+    }
+
+    /**
+     * How many pivots the BFS was run from.
+     */
+    public int sampleSize()
+    {
+        return sampleSize;
+    }
+
+    /**
+     * How many candidates there were.
+     */
+    public int candidateCount()
+    {
+        return candidateCount;
+    }
+
+    /**
+     * Whether the estimates are exact (every candidate was a pivot).
+     */
+    public boolean isExact()
+    {
+        return sampleSize == candidateCount;
+    }
+
+    /**
+     * How far any estimate may be from the true value, with the given confidence.
+     */
+    public double errorBound()
+    {
+        return errorBound;
+    }
+
+    /**
+     * The probability that every estimate is within the error bound.
+     */
+    public double confidence()
+    {
+        return confidence;
+    }
+
+    /**
+     * Returns a string representation of the sample and error bound.
+     */
+    public String toString()
+    {
+        if (isExact()) return "exact, from all " + candidateCount + " actors";
+
+        return "estimated from " + sampleSize + " of " + candidateCount + " actors, each within \u00b1"
+                + String.format("%.3f", errorBound) + " with " + Math.round(confidence * 100) + "% confidence";
+    }
+}
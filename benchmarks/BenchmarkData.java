@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmark Data
+ * The input files for the benchmarks. A dataset is either "bundled" (the actors.txt, movies.txt and movie-actors.txt
+ * in PS4/, relative to the working directory, as for KevinBaconGame.main()) or "synthetic-N", a dataset with about N
+ * credits from DatasetGenerator, written once per JVM to a temporary directory.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class BenchmarkData
+{
+    private static final long SEED = 1; // The same synthetic dataset every time.
+    private static final Map<String, String[]> written = new HashMap<String, String[]>(); // Synthetic datasets already written.
+
+    /**
+     * The actor, movie and connections files for the dataset.
+     */
+    public static synchronized String[] files(String dataset) throws IOException
+    {
+        if (dataset.equals("bundled"))
+            return new String[] { "PS4/actors.txt", "PS4/movies.txt", "PS4/movie-actors.txt" };
+
+        if (!dataset.startsWith("synthetic-"))
+            throw new IllegalArgumentException("Unknown dataset: " + dataset);
+
+        String[] files = written.get(dataset);
+        if (files == null)
+        {
+            long credits = Long.parseLong(dataset.substring("synthetic-".length()));
+            files = DatasetGenerator.generate(Files.createTempDirectory("kevin-bacon-" + dataset), credits, SEED);
+            written.put(dataset, files);
+        }
+
+        return files;
+    }
+
+    /**
+     * The center of the universe for the dataset: Kevin Bacon, or the most prolific synthetic actor.
+     */
+    public static String center(String dataset)
+    {
+        return dataset.equals("bundled") ? "Kevin Bacon" : "Actor 1";
+    }
+
+    /**
+     * A fixed sample of the actors in the dataset (the same ones every time), for queries that name an actor.
+     */
+    public static List<String> sampleActors(String dataset, int count) throws IOException
+    {
+        List<String> actors = new ArrayList<String>(MovieDataLoader.readNames(files(dataset)[0]).values());
+        Random random = new Random(SEED);
+
+        List<String> sample = new ArrayList<String>(count);
+        for (int i = 0; i < count; i += 1)
+            sample.add(actors.get(random.nextInt(actors.size())));
+
+        return sample;
+    }
+}
@@ -0,0 +1,29 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Benchmarks
+ * Runs the benchmarks (LoadBenchmark, GraphLibraryBenchmark and CommandBenchmark) with the GC profiler, so that the
+ * allocation rate is reported along with throughput and latency. Takes the usual JMH command line options, e.g. a
+ * regular expression for which benchmarks to run, or -p dataset=bundled to leave out the synthetic dataset.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class Benchmarks
+{
+    public static void main(String[] args) throws Exception
+    {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,71 @@
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Command Benchmark
+ * Each command of the game, run through acceptInput() as if it had been typed in (with the output thrown away). In a
+ * command, {actor} and {other} stand for actors from a fixed sample of the dataset, a different pair each time. The
+ * synthetic dataset is smaller than in the other benchmarks, since c -10 still runs a BFS from every actor. See
+ * CommandWorkloads.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandBenchmark
+{
+    @Param({ "bundled", "synthetic-50000" })
+    public String dataset;
+
+    @Param({ "p {actor}", "b {actor}|{other}", "u {actor}", "c 10", "c -10", "c 10 0.1", "d 1 5", "s 1 3", "i", "e 10", "l 10" })
+    public String command;
+
+    private Workload acceptInput;
+    private PrintStream out, err; // The real output streams, while the output is thrown away.
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        acceptInput = Workload.create("CommandWorkloads", dataset, command).get("acceptInput");
+
+        out = System.out;
+        err = System.err;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown()
+    {
+        System.setOut(out);
+        System.setErr(err);
+    }
+
+    @Benchmark
+    public Object acceptInput() throws Exception
+    {
+        return acceptInput.run();
+    }
+}
@@ -0,0 +1,41 @@
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+import benchmarks.Workload;
+
+/**
+ * Command Workloads
+ * The operation measured by CommandBenchmark: a command of the game, run through acceptInput() as if it had been typed
+ * in. In the command, {actor} and {other} stand for actors from a fixed sample of the dataset, a different pair each
+ * time.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class CommandWorkloads
+{
+    /**
+     * The operation (acceptInput) on the given dataset (params: dataset, command).
+     */
+    public static Map<String, Workload> create(String... params) throws IOException
+    {
+        String dataset = params[0], command = params[1];
+        String[] files = BenchmarkData.files(dataset);
+
+        KevinBaconGame game = new KevinBaconGame(BenchmarkData.center(dataset), new Scanner(""), files[0], files[1], files[2]);
+        List<String> actors = BenchmarkData.sampleActors(dataset, 1024);
+        int[] next = new int[1]; // The next actor.
+
+        Map<String, Workload> workloads = new HashMap<String, Workload>();
+        workloads.put("acceptInput", () ->
+        {
+            next[0] = (next[0] + 2) % actors.size();
+            return game.acceptInput(command.replace("{actor}", actors.get(next[0])).replace("{other}", actors.get(next[0] + 1)));
+        });
+
+        return workloads;
+    }
+}
@@ -0,0 +1,132 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Graph Library Benchmark
+ * The graph-as-tree functions of GraphLibrary (bfs, getPath, averageSeparation, missingVertices and
+ * verticesByInDegree) on the co-star graph, either as loaded by the game (a CSRGraph) or copied into an
+ * AdjacencyMapGraph, as the game originally built it; and the functions the game now uses instead (distanceTree,
+ * shortestPath and averageSeparations), on the frozen graph the game loads. See GraphLibraryWorkloads.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphLibraryBenchmark
+{
+    /**
+     * Graphs
+     * The co-star graph as either kind of graph, for the functions of the Graph interface.
+     */
+    @State(Scope.Benchmark)
+    public static class Graphs
+    {
+        @Param({ "bundled", "synthetic-200000" })
+        public String dataset;
+
+        @Param({ "csr", "adjacency" })
+        public String graphType;
+
+        private Workload bfs, getPath, averageSeparation, missingVertices, verticesByInDegree;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception
+        {
+            Map<String, Workload> workloads = Workload.create("GraphLibraryWorkloads", dataset, graphType);
+            bfs = workloads.get("bfs");
+            getPath = workloads.get("getPath");
+            averageSeparation = workloads.get("averageSeparation");
+            missingVertices = workloads.get("missingVertices");
+            verticesByInDegree = workloads.get("verticesByInDegree");
+        }
+    }
+
+    /**
+     * Frozen
+     * The co-star graph as loaded by the game, for the functions that need dense IDs.
+     */
+    @State(Scope.Benchmark)
+    public static class Frozen
+    {
+        @Param({ "bundled", "synthetic-200000" })
+        public String dataset;
+
+        private Workload distanceTree, shortestPath, averageSeparations;
+
+        @Setup(Level.Trial)
+        public void setUp() throws Exception
+        {
+            Map<String, Workload> workloads = Workload.create("GraphLibraryWorkloads", dataset, "csr");
+            distanceTree = workloads.get("distanceTree");
+            shortestPath = workloads.get("shortestPath");
+            averageSeparations = workloads.get("averageSeparations");
+        }
+    }
+
+    @Benchmark
+    public Object bfs(Graphs graphs) throws Exception
+    {
+        return graphs.bfs.run();
+    }
+
+    @Benchmark
+    public Object getPath(Graphs graphs) throws Exception
+    {
+        return graphs.getPath.run();
+    }
+
+    @Benchmark
+    public Object averageSeparation(Graphs graphs) throws Exception
+    {
+        return graphs.averageSeparation.run();
+    }
+
+    @Benchmark
+    public Object missingVertices(Graphs graphs) throws Exception
+    {
+        return graphs.missingVertices.run();
+    }
+
+    @Benchmark
+    public Object verticesByInDegree(Graphs graphs) throws Exception
+    {
+        return graphs.verticesByInDegree.run();
+    }
+
+    @Benchmark
+    public Object distanceTree(Frozen frozen) throws Exception
+    {
+        return frozen.distanceTree.run();
+    }
+
+    @Benchmark
+    public Object shortestPath(Frozen frozen) throws Exception
+    {
+        return frozen.shortestPath.run();
+    }
+
+    @Benchmark
+    public Object averageSeparations(Frozen frozen) throws Exception
+    {
+        return frozen.averageSeparations.run();
+    }
+}
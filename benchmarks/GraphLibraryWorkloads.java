@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Scanner;
+
+import benchmarks.Workload;
+
+/**
+ * Graph Library Workloads
+ * The operations measured by GraphLibraryBenchmark, on the co-star graph of a dataset, either as loaded by the game
+ * (csr) or copied into an AdjacencyMapGraph (adjacency), as the game originally built it. The graph-as-tree functions
+ * (bfs, getPath, averageSeparation, missingVertices and verticesByInDegree) run on either; the functions the game now
+ * uses instead (distanceTree, shortestPath and averageSeparations) only run on the frozen graph the game loads.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class GraphLibraryWorkloads
+{
+    private static final int SAMPLE = 1024; // How many actors connected to the center are sampled for the queries.
+    private static final int SOURCES = 256; // How many of them averageSeparations() is run for (four batches).
+
+    /**
+     * The operations, by name, on the graph of the given dataset and type (params: dataset, graph type).
+     */
+    public static Map<String, Workload> create(String... params) throws IOException
+    {
+        String dataset = params[0], graphType = params[1];
+        String[] files = BenchmarkData.files(dataset);
+        String center = BenchmarkData.center(dataset);
+
+        KevinBaconGame game = new KevinBaconGame(center, new Scanner(""), files[0], files[1], files[2]);
+        IndexedGraph<String, MovieLabel> frozen = game.getMainGraph();
+        Graph<String, MovieLabel> graph = frozen;
+
+        // Copying the graph into an AdjacencyMapGraph, if that is the one being measured.
+        if (graphType.equals("adjacency"))
+        {
+            Graph<String, MovieLabel> copy = new AdjacencyMapGraph<String, MovieLabel>();
+            for (String v : frozen.vertices()) copy.insertVertex(v);
+
+            for (String u : frozen.vertices())
+            {
+                for (String v : frozen.outNeighbors(u))
+                    copy.insertDirected(u, v, frozen.getLabel(u, v));
+            }
+
+            graph = copy;
+        }
+
+        Graph<String, MovieLabel> g = graph;
+        Graph<String, MovieLabel> tree = GraphLibrary.bfs(g, center);
+
+        // Picking a fixed sample of the actors connected to the center (the same ones every time), to query in turn.
+        List<String> connected = new ArrayList<String>();
+        for (String v : tree.vertices()) connected.add(v);
+
+        Random random = new Random(1);
+        List<String> targets = new ArrayList<String>(SAMPLE);
+        for (int i = 0; i < SAMPLE; i += 1)
+            targets.add(connected.get(random.nextInt(connected.size())));
+
+        List<String> sources = new ArrayList<String>(targets.subList(0, SOURCES));
+        int[] next = new int[1]; // The next target (or pair of targets).
+
+        Map<String, Workload> workloads = new HashMap<String, Workload>();
+        workloads.put("bfs", () -> GraphLibrary.bfs(g, center));
+        workloads.put("getPath", () -> GraphLibrary.getPath(tree, targets.get(next[0] = (next[0] + 1) % SAMPLE)));
+        workloads.put("averageSeparation", () -> GraphLibrary.averageSeparation(tree, center));
+        workloads.put("missingVertices", () -> GraphLibrary.missingVertices(g, tree));
+        workloads.put("verticesByInDegree", () -> GraphLibrary.verticesByInDegree(g));
+
+        if (g == frozen)
+        {
+            workloads.put("distanceTree", () -> GraphLibrary.distanceTree(frozen, center));
+            workloads.put("shortestPath", () ->
+            {
+                next[0] = (next[0] + 2) % SAMPLE;
+                return GraphLibrary.shortestPath(frozen, targets.get(next[0]), targets.get(next[0] + 1));
+            });
+            workloads.put("averageSeparations", () -> GraphLibrary.averageSeparations(frozen, sources));
+        }
+
+        return workloads;
+    }
+}
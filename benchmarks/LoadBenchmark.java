@@ -0,0 +1,66 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Load Benchmark
+ * How long it takes to set up a KevinBaconGame (initializeMainGraph(), then the indexes and the first tree), either
+ * from the snapshot, by rebuilding the co-star graph from the input files (the snapshot is deleted before each
+ * invocation), or as a bipartite graph. See LoadWorkloads.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LoadBenchmark
+{
+    @Param({ "bundled", "synthetic-200000" })
+    public String dataset;
+
+    @Param({ "snapshot", "rebuild", "bipartite" })
+    public String mode;
+
+    private Workload load, deleteSnapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception
+    {
+        Map<String, Workload> workloads = Workload.create("LoadWorkloads", dataset, mode);
+        load = workloads.get("load");
+        deleteSnapshot = workloads.get("deleteSnapshot");
+
+        // Making sure there is an up to date snapshot to load.
+        if (mode.equals("snapshot")) load();
+    }
+
+    @Setup(Level.Invocation)
+    public void deleteSnapshot() throws Exception
+    {
+        if (mode.equals("rebuild")) deleteSnapshot.run();
+    }
+
+    @Benchmark
+    public Object load() throws Exception
+    {
+        return load.run();
+    }
+}
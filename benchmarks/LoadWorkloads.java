@@ -0,0 +1,36 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Scanner;
+
+import benchmarks.Workload;
+
+/**
+ * Load Workloads
+ * The operations measured by LoadBenchmark: setting up a KevinBaconGame on a dataset, from the snapshot, by rebuilding
+ * the co-star graph from the input files, or as a bipartite graph; and deleting the snapshot, so that the next load
+ * rebuilds it.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public class LoadWorkloads
+{
+    /**
+     * The operations, by name, on the given dataset (params: dataset, mode).
+     */
+    public static Map<String, Workload> create(String... params) throws IOException
+    {
+        String dataset = params[0], mode = params[1];
+        String[] files = BenchmarkData.files(dataset);
+        String center = BenchmarkData.center(dataset);
+
+        Map<String, Workload> workloads = new HashMap<String, Workload>();
+        workloads.put("load", () -> new KevinBaconGame(center, new Scanner(""), files[0], files[1], files[2], mode.equals("bipartite")));
+        workloads.put("deleteSnapshot", () -> Files.deleteIfExists(Path.of(GraphSnapshot.snapshotFile(files[2]))));
+
+        return workloads;
+    }
+}
@@ -0,0 +1,30 @@
+package benchmarks;
+
+import java.util.Map;
+
+/**
+ * Workload
+ * An operation for a benchmark to measure. JMH only accepts benchmark classes that are in a package, and a class in a
+ * package cannot refer to the game's classes (which are in the default package), so each suite's operations are set
+ * up by a class in the default package (e.g. GraphLibraryWorkloads, next to the benchmarks) and handed over through
+ * this interface, looked up by name once per trial.
+ *
+ * @author Carter Kruse & John DeForest, Dartmouth CS 10, Spring 2022
+ */
+
+public interface Workload
+{
+    /**
+     * Runs the operation once, returning its result (for JMH to consume).
+     */
+    public Object run() throws Exception;
+
+    /**
+     * The operations, by name, set up by the static create(String...) method of the named class in the default package.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Workload> create(String className, String... params) throws ReflectiveOperationException
+    {
+        return (Map<String, Workload>) Class.forName(className).getMethod("create", String[].class).invoke(null, (Object) params);
+    }
+}